@@ -0,0 +1,113 @@
+package de.jwiegmann.registry.poc;
+
+import de.jwiegmann.registry.poc.control.SchemaTrafficTracker;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.encoding.MyKafkaMessageAvroMapper;
+import de.jwiegmann.registry.poc.util.SchemaRegistryClients;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import lombok.NoArgsConstructor;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Consumer-Deserializer für das Migrationsfenster zwischen JSON Schema und Avro.
+ * <p>
+ * Anhand der Schema-ID im Wire-Format wird der registrierte Schema-Typ nachgeschlagen (einmal je ID gecacht):
+ * Avro-Records werden mit dem {@link KafkaAvroDeserializer} gelesen und auf {@link MyKafkaMessage} abgebildet,
+ * alle anderen an den JSON-Deserializer aus {@link #JSON_DESERIALIZER_CLASS_CONFIG} weitergereicht, der
+ * Validierung und Verkehrsstatistik für JSON übernimmt. Avro-Records meldet diese Klasse selbst an den
+ * {@link SchemaTrafficTracker}.
+ */
+@NoArgsConstructor
+public class EncodingDispatchingDeserializer implements Deserializer<MyKafkaMessage> {
+
+    /**
+     * Config-Key für die Klasse des JSON-Deserializers.
+     */
+    public static final String JSON_DESERIALIZER_CLASS_CONFIG = "kafka.encoding.json.deserializer";
+
+    private final Map<Integer, Boolean> avroBySchemaId = new ConcurrentHashMap<>();
+
+    private Deserializer<MyKafkaMessage> jsonDeserializer;
+    private KafkaAvroDeserializer avroDeserializer;
+    private SchemaRegistryClient schemaRegistryClient;
+    private SchemaTrafficTracker tracker;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object jsonClass = configs.get(JSON_DESERIALIZER_CLASS_CONFIG);
+        if (!(jsonClass instanceof Class<?> type) || !Deserializer.class.isAssignableFrom(type)) {
+            throw new ConfigException(JSON_DESERIALIZER_CLASS_CONFIG, jsonClass, "must be a Deserializer class");
+        }
+        this.jsonDeserializer = (Deserializer<MyKafkaMessage>) Utils.newInstance(type);
+        this.jsonDeserializer.configure(configs, isKey);
+
+        Object client = configs.get(MyKafkaMessageSerializer.SCHEMA_REGISTRY_CLIENT_CONFIG);
+        this.schemaRegistryClient = client instanceof SchemaRegistryClient configured
+                ? configured
+                : SchemaRegistryClients.create(String.valueOf(configs.get("schema.registry.url")), 100, configs);
+
+        this.avroDeserializer = new KafkaAvroDeserializer(schemaRegistryClient);
+        this.avroDeserializer.configure(configs, isKey);
+
+        if (configs.get(SchemaTrafficTrackingDeserializer.TRACKER_CONFIG) instanceof SchemaTrafficTracker configured) {
+            this.tracker = configured;
+        }
+    }
+
+    @Override
+    public MyKafkaMessage deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public MyKafkaMessage deserialize(String topic, Headers headers, byte[] data) {
+        int schemaId = data != null ? SchemaTrafficTrackingDeserializer.schemaId(data) : SchemaTrafficTracker.UNKNOWN_SCHEMA_ID;
+        if (schemaId == SchemaTrafficTracker.UNKNOWN_SCHEMA_ID || !isAvro(schemaId)) {
+            return jsonDeserializer.deserialize(topic, headers, data);
+        }
+
+        MyKafkaMessage result;
+        try {
+            result = MyKafkaMessageAvroMapper.fromRecord((GenericRecord) avroDeserializer.deserialize(topic, headers, data));
+        } catch (RuntimeException e) {
+            if (tracker != null) {
+                tracker.recordFailure(topic, schemaId, data.length);
+            }
+            throw e;
+        }
+        if (tracker != null) {
+            tracker.recordSuccess(topic, schemaId, data.length);
+        }
+        return result;
+    }
+
+    private boolean isAvro(int schemaId) {
+        Boolean avro = avroBySchemaId.get(schemaId);
+        if (avro == null) {
+            try {
+                avro = AvroSchema.TYPE.equals(schemaRegistryClient.getSchemaById(schemaId).schemaType());
+            } catch (Exception e) {
+                throw new SerializationException("Error retrieving schema for id " + schemaId, e);
+            }
+            avroBySchemaId.put(schemaId, avro);
+        }
+        return avro;
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+        avroDeserializer.close();
+    }
+}
@@ -0,0 +1,75 @@
+package de.jwiegmann.registry.poc;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.encoding.MessageEncoding;
+import de.jwiegmann.registry.poc.encoding.MyKafkaMessageAvroMapper;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import lombok.NoArgsConstructor;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+
+/**
+ * Producer-Serializer, der die Kodierung je Topic wählt: Avro für die unter {@link #TOPIC_ENCODINGS_CONFIG}
+ * als {@link MessageEncoding#AVRO} konfigurierten Topics, sonst den JSON-Serializer aus
+ * {@link #JSON_SERIALIZER_CLASS_CONFIG}.
+ * <p>
+ * Beide Delegates erhalten dieselbe Konfiguration ({@code use.latest.version}, {@code auto.register.schemas},
+ * Subject-Strategie); das Avro-Subject ergibt sich aus dem vollen Namen des Avro-Records.
+ */
+@NoArgsConstructor
+public class EncodingSelectingSerializer implements Serializer<MyKafkaMessage> {
+
+    /**
+     * Config-Key für die Map Topic → {@link MessageEncoding}.
+     */
+    public static final String TOPIC_ENCODINGS_CONFIG = "kafka.encoding.topics";
+
+    /**
+     * Config-Key für die Klasse des JSON-Serializers.
+     */
+    public static final String JSON_SERIALIZER_CLASS_CONFIG = "kafka.encoding.json.serializer";
+
+    private Map<String, MessageEncoding> topicEncodings = Map.of();
+    private Serializer<MyKafkaMessage> jsonSerializer;
+    private KafkaAvroSerializer avroSerializer;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object encodings = configs.get(TOPIC_ENCODINGS_CONFIG);
+        if (encodings instanceof Map<?, ?> map) {
+            this.topicEncodings = (Map<String, MessageEncoding>) map;
+        }
+
+        Object jsonClass = configs.get(JSON_SERIALIZER_CLASS_CONFIG);
+        if (!(jsonClass instanceof Class<?> type) || !Serializer.class.isAssignableFrom(type)) {
+            throw new ConfigException(JSON_SERIALIZER_CLASS_CONFIG, jsonClass, "must be a Serializer class");
+        }
+        this.jsonSerializer = (Serializer<MyKafkaMessage>) Utils.newInstance(type);
+        this.jsonSerializer.configure(configs, isKey);
+
+        if (topicEncodings.containsValue(MessageEncoding.AVRO)) {
+            this.avroSerializer = new KafkaAvroSerializer();
+            this.avroSerializer.configure(configs, isKey);
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, MyKafkaMessage message) {
+        if (topicEncodings.get(topic) == MessageEncoding.AVRO) {
+            return avroSerializer.serialize(topic, message != null ? MyKafkaMessageAvroMapper.toRecord(message) : null);
+        }
+        return jsonSerializer.serialize(topic, message);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+        if (avroSerializer != null) {
+            avroSerializer.close();
+        }
+    }
+}
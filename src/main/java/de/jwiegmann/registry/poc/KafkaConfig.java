@@ -1,7 +1,21 @@
 package de.jwiegmann.registry.poc;
 
+import de.jwiegmann.registry.poc.compression.AdaptiveCompressionKafkaTemplate;
+import de.jwiegmann.registry.poc.compression.CompressionProperties;
+import de.jwiegmann.registry.poc.compression.CompressionSelector;
+import de.jwiegmann.registry.poc.compression.PayloadSizeHistograms;
+import de.jwiegmann.registry.poc.control.DeadLetterPublisher;
+import de.jwiegmann.registry.poc.control.ExactlyOnceProperties;
+import de.jwiegmann.registry.poc.control.ExactlyOnceRepublisher;
+import de.jwiegmann.registry.poc.control.SchemaRegistryWatcher;
+import de.jwiegmann.registry.poc.control.SchemaTrafficTracker;
 import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
-import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer;
+import de.jwiegmann.registry.poc.encoding.EncodingProperties;
+import de.jwiegmann.registry.poc.store.MessageLogProperties;
+import de.jwiegmann.registry.poc.upcast.MyKafkaMessageUpcaster;
+import de.jwiegmann.registry.poc.upcast.UpcastProperties;
+import de.jwiegmann.registry.poc.util.SchemaRegistryClients;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
 import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
 import io.confluent.kafka.serializers.subject.RecordNameStrategy;
 import lombok.extern.slf4j.Slf4j;
@@ -9,19 +23,28 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 @EnableKafka
-@Configuration
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(KafkaRuntimeHints.class)
+@EnableConfigurationProperties({EncodingProperties.class, ExactlyOnceProperties.class, CompressionProperties.class,
+        MessageLogProperties.class, UpcastProperties.class})
 @Slf4j
 public class KafkaConfig {
 
@@ -37,12 +60,47 @@ public class KafkaConfig {
     @Value("${kafka.group}")
     private String groupId;
 
+    @Value("${schema.registry.cache-capacity:100}")
+    private int schemaRegistryCacheCapacity;
+
+    @Value("${schema.serialization.pooled.enabled:false}")
+    private boolean pooledSerialization;
+
+    @Value("${schema.startup.optimized:false}")
+    private boolean startupOptimized;
+
+    @Value("${schema.validation.streaming.enabled:false}")
+    private boolean streamingValidation;
+
+    @Value("${schema.validation.streaming.max-payload-bytes:1048576}")
+    private int streamingMaxPayloadBytes;
+
+    @Value("${schema.validation.streaming.max-nesting-depth:32}")
+    private int streamingMaxNestingDepth;
+
+    @Value("${schema.validation.streaming.max-string-length:262144}")
+    private int streamingMaxStringLength;
+
+    // ============================================================================
+    // SCHEMA REGISTRY CLIENT
+    // ============================================================================
+
+    @Bean
+    public SchemaRegistryClient schemaRegistryClient() {
+        // Mit JSON-Schema- und Avro-Provider – der Client wird in alle Deserializer gereicht, die JSON-IDs auflösen
+        return SchemaRegistryClients.create(schemaRegistryUrl, schemaRegistryCacheCapacity,
+                Map.of("schema.registry.url", schemaRegistryUrl));
+    }
+
     // ============================================================================
     // PRODUCER CONFIGURATION
     // ============================================================================
 
     @Bean
-    public ProducerFactory<String, MyKafkaMessage> producerFactory() {
+    public ProducerFactory<String, MyKafkaMessage> producerFactory(EncodingProperties encodingProperties,
+                                                                   SchemaRegistryClient schemaRegistryClient,
+                                                                   SchemaRegistryWatcher schemaRegistryWatcher,
+                                                                   PayloadSizeHistograms payloadSizeHistograms) {
         Map<String, Object> configProps = new HashMap<>();
 
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -51,8 +109,31 @@ public class KafkaConfig {
         // Serializer des Kafka Message Keys
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
 
-        // Serializer des Kafka Message Values
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaJsonSchemaSerializer.class);
+        // Serializer des Kafka Message Values – im startoptimierten Modus ohne reflektive Schema-Generierung,
+        // mit Watcher über den gemeinsamen Client, der die neueste Version je Subject bei Änderungen neu lädt
+        Class<?> jsonSerializer = pooledSerialization || startupOptimized || schemaRegistryWatcher.isEnabled()
+                ? MyKafkaMessageSerializer.class
+                : KafkaJsonSchemaSerializer.class;
+        if (encodingProperties.producesAvro()) {
+            // Kodierung je Topic: Avro für die konfigurierten Topics, sonst JSON Schema
+            configProps.put(PayloadSizeRecordingSerializer.DELEGATE_CLASS_CONFIG, EncodingSelectingSerializer.class);
+            configProps.put(EncodingSelectingSerializer.JSON_SERIALIZER_CLASS_CONFIG, jsonSerializer);
+            configProps.put(EncodingSelectingSerializer.TOPIC_ENCODINGS_CONFIG, encodingProperties.topics());
+        } else {
+            configProps.put(PayloadSizeRecordingSerializer.DELEGATE_CLASS_CONFIG, jsonSerializer);
+        }
+
+        // Größe jeder serialisierten Payload je Topic erfassen (Grundlage für die Kompressionsauswahl)
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PayloadSizeRecordingSerializer.class);
+        configProps.put(PayloadSizeRecordingSerializer.HISTOGRAMS_CONFIG, payloadSizeHistograms);
+
+        // Gemeinsamer Registry-Client für den allokationsarmen Serializer (Schema-Cache wird geteilt)
+        configProps.put(MyKafkaMessageSerializer.SCHEMA_REGISTRY_CLIENT_CONFIG, schemaRegistryClient);
+        configProps.put(MyKafkaMessageSerializer.SCHEMA_REGISTRY_WATCHER_CONFIG, schemaRegistryWatcher);
+
+        // Idempotenter Producer: Retries erzeugen keine Duplikate im Topic (Voraussetzung für Transaktionen)
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
 
         // Automatische clientseitige Schema-Generierung und Registrierung aus
         configProps.put("auto.register.schemas", false);
@@ -70,8 +151,12 @@ public class KafkaConfig {
     }
 
     @Bean
-    public KafkaTemplate<String, MyKafkaMessage> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, MyKafkaMessage> kafkaTemplate(ProducerFactory<String, MyKafkaMessage> producerFactory,
+                                                               CompressionSelector compressionSelector) {
+        // Kompression, batch.size und linger.ms je Topic nach beobachteter Payload-Größe
+        return compressionSelector.isAdaptive()
+                ? new AdaptiveCompressionKafkaTemplate(producerFactory, compressionSelector)
+                : new KafkaTemplate<>(producerFactory);
     }
 
     // ============================================================================
@@ -79,7 +164,10 @@ public class KafkaConfig {
     // ============================================================================
 
     @Bean
-    public ConsumerFactory<String, MyKafkaMessage> consumerFactory() {
+    public ConsumerFactory<String, MyKafkaMessage> consumerFactory(SchemaTrafficTracker schemaTrafficTracker,
+                                                                   EncodingProperties encodingProperties,
+                                                                   SchemaRegistryClient schemaRegistryClient,
+                                                                   MyKafkaMessageUpcaster upcaster) {
         Map<String, Object> configProps = new HashMap<>();
 
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -92,10 +180,33 @@ public class KafkaConfig {
         // KafkaDeserializer für Key, Value und Error
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, KafkaJsonSchemaDeserializer.class);
+        // Upcasting setzt auf der Streaming-Validierung auf und bindet ältere Versionen über kompilierte Pläne
+        Class<?> jsonDeserializer = upcaster.isEnabled()
+                ? UpcastingJsonSchemaDeserializer.class
+                : streamingValidation
+                ? StreamingJsonSchemaDeserializer.class
+                : SchemaTrafficTrackingDeserializer.class;
+        if (encodingProperties.consumesAvro()) {
+            // Migrationsfenster: JSON und Avro anhand des registrierten Schema-Typs unterscheiden
+            configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, EncodingDispatchingDeserializer.class);
+            configProps.put(EncodingDispatchingDeserializer.JSON_DESERIALIZER_CLASS_CONFIG, jsonDeserializer);
+        } else {
+            configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, jsonDeserializer);
+        }
+
+        // Gemeinsamer Registry-Client: Schemas, die beim Start vorgewärmt wurden, sind für den ersten Record gecacht
+        configProps.put(MyKafkaMessageSerializer.SCHEMA_REGISTRY_CLIENT_CONFIG, schemaRegistryClient);
+
+        // Fail-Fast: Validierung während des Parsens, Abbruch bei der ersten Verletzung oder Limit-Überschreitung
+        configProps.put(StreamingJsonSchemaDeserializer.MAX_PAYLOAD_BYTES_CONFIG, streamingMaxPayloadBytes);
+        configProps.put(StreamingJsonSchemaDeserializer.MAX_NESTING_DEPTH_CONFIG, streamingMaxNestingDepth);
+        configProps.put(StreamingJsonSchemaDeserializer.MAX_STRING_LENGTH_CONFIG, streamingMaxStringLength);
+
+        // Gemeinsamer Upcaster: Feld-Abbildungen werden je Schema-ID einmal abgeleitet und von allen Consumern geteilt
+        configProps.put(UpcastingJsonSchemaDeserializer.UPCASTER_CONFIG, upcaster);
 
-        // Welcher Error Handler wird aufgerufen, wenn eine Schema-Validierung failed
-        configProps.put(ErrorHandlingDeserializer.VALUE_FUNCTION, SchemaValidationErrorHandler.class);
+        // Zählt Records, Bytes und Validierungsfehler je Topic × Schema-ID
+        configProps.put(SchemaTrafficTrackingDeserializer.TRACKER_CONFIG, schemaTrafficTracker);
 
         // Festlegen auf welches DTO der Kafka Message Value automatisch gemappt werden soll
         configProps.put("specific.json.reader", true);
@@ -104,16 +215,47 @@ public class KafkaConfig {
         // Sicherstellen, dass bei einer nicht erfolgreichen Validierung eine Exception geworfen wird
         configProps.put("json.fail.invalid.schema", true);
 
+        // Schlägt die Validierung fehl, meldet der ErrorHandlingDeserializer eine DeserializationException an den
+        // Container, der den vollständigen Record an den Error Handler übergibt
         return new DefaultKafkaConsumerFactory<>(configProps);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, MyKafkaMessage> kafkaListenerContainerFactory() {
+    public SchemaValidationErrorHandler schemaValidationErrorHandler() {
+        // Als Bean, damit abgelaufene Aggregationsfenster periodisch geloggt und entfernt werden
+        return new SchemaValidationErrorHandler();
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, MyKafkaMessage> kafkaListenerContainerFactory(
+            ConsumerFactory<String, MyKafkaMessage> consumerFactory,
+            SchemaValidationErrorHandler schemaValidationErrorHandler,
+            DeadLetterPublisher deadLetterPublisher) {
         ConcurrentKafkaListenerContainerFactory<String, MyKafkaMessage> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+
+        // Abgelehnte Records loggen und – falls aktiviert – blockierend in das Dead-Letter-Topic schreiben. Schlägt
+        // das Senden fehl, wird der Offset nicht committet und der Record erneut zugestellt.
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, exception) -> {
+            schemaValidationErrorHandler.accept(record, exception);
+            deadLetterPublisher.accept(record, exception);
+        }));
         return factory;
     }
-}
 
+    // ============================================================================
+    // EXACTLY-ONCE CONSUME-TRANSFORM-PRODUCE
+    // ============================================================================
 
+    @Bean
+    @ConditionalOnProperty(prefix = "kafka.exactly-once", name = "enabled", havingValue = "true")
+    public ExactlyOnceRepublisher exactlyOnceRepublisher(ConsumerFactory<String, MyKafkaMessage> consumerFactory,
+                                                         ProducerFactory<String, MyKafkaMessage> producerFactory,
+                                                         ExactlyOnceProperties exactlyOnceProperties,
+                                                         ObjectProvider<UnaryOperator<MyKafkaMessage>> transformer) {
+        // Ohne eigene Transformation werden die Nachrichten unverändert weitergeschrieben
+        return new ExactlyOnceRepublisher(consumerFactory, producerFactory, exactlyOnceProperties,
+                transformer.getIfAvailable(UnaryOperator::identity));
+    }
+}
@@ -0,0 +1,49 @@
+package de.jwiegmann.registry.poc;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.util.DtoSchemaMetadata;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
+import io.confluent.kafka.serializers.subject.RecordNameStrategy;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Hinweise für Spring AOT: Kafka instanziiert Serializer, Deserializer, Subject-Strategie und Error Handler über
+ * die in {@link KafkaConfig} hinterlegten Klassen per Reflection; Jackson bindet die DTOs reflektiv. Außerdem
+ * werden die Build-Zeit-Schema-Metadaten und das Avro-Schema als Ressourcen benötigt.
+ */
+class KafkaRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> KAFKA_INSTANTIATED = List.of(
+            PayloadSizeRecordingSerializer.class,
+            KafkaJsonSchemaSerializer.class,
+            MyKafkaMessageSerializer.class,
+            EncodingSelectingSerializer.class,
+            KafkaAvroSerializer.class,
+            SchemaTrafficTrackingDeserializer.class,
+            StreamingJsonSchemaDeserializer.class,
+            UpcastingJsonSchemaDeserializer.class,
+            EncodingDispatchingDeserializer.class,
+            KafkaJsonSchemaDeserializer.class,
+            KafkaAvroDeserializer.class,
+            RecordNameStrategy.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        KAFKA_INSTANTIATED.forEach(type -> hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                MyKafkaMessage.class, DtoSchemaMetadata.class);
+
+        hints.resources()
+                .registerPattern(DtoSchemaMetadata.RESOURCE_DIRECTORY + "*.json")
+                .registerPattern("avro/*.avsc");
+    }
+}
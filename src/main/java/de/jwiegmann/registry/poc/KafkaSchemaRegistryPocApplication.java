@@ -2,8 +2,10 @@ package de.jwiegmann.registry.poc;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class KafkaSchemaRegistryPocApplication {
     public static void main(String[] args) {
         SpringApplication.run(KafkaSchemaRegistryPocApplication.class, args);
@@ -0,0 +1,262 @@
+package de.jwiegmann.registry.poc;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import de.jwiegmann.registry.poc.control.SchemaRegistryWatcher;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.dto.SchemaChangedEvent;
+import de.jwiegmann.registry.poc.util.DtoSchemaMetadata;
+import de.jwiegmann.registry.poc.util.SchemaRegistryClients;
+import de.jwiegmann.registry.poc.validation.FieldConstraints;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Allokationsarmer Serializer für {@link MyKafkaMessage} im Confluent Wire-Format.
+ * <p>
+ * Statt das DTO erst in einen {@code JsonNode}-Baum zu wandeln und diesen gegen das Schema zu validieren, werden
+ * die Feldwerte direkt gegen die aus der neuesten Schema-Version abgeleiteten {@link FieldConstraints} geprüft.
+ * Geschrieben wird mit einem je Thread wiederverwendeten {@link JsonGenerator} in einen ebenfalls
+ * wiederverwendeten Puffer; pro Nachricht wird nur das finale {@code byte[]} des Records alloziert.
+ * <p>
+ * Lässt sich das Schema nicht auf die DTO-Felder abbilden, delegiert der Serializer an den
+ * {@link KafkaJsonSchemaSerializer} mit identischer Konfiguration.
+ * <p>
+ * Die neueste Version wird einmal geladen und gecacht. Ist ein {@link SchemaRegistryWatcher} konfiguriert
+ * ({@link #SCHEMA_REGISTRY_WATCHER_CONFIG}), wird der Cache verworfen, sobald eine neue Version des Subjects
+ * registriert wird.
+ */
+@Slf4j
+@NoArgsConstructor
+public class MyKafkaMessageSerializer implements Serializer<MyKafkaMessage> {
+
+    /**
+     * Config-Key, unter dem eine bereits vorhandene {@link SchemaRegistryClient}-Instanz übergeben werden kann.
+     */
+    public static final String SCHEMA_REGISTRY_CLIENT_CONFIG = "schema.registry.client";
+
+    /**
+     * Config-Key, unter dem der {@link SchemaRegistryWatcher} übergeben wird.
+     */
+    public static final String SCHEMA_REGISTRY_WATCHER_CONFIG = "schema.registry.watcher";
+
+    // Feld-Indizes für FieldConstraints – Reihenfolge entspricht der Schreibreihenfolge
+    private static final List<String> FIELDS = List.of("id", "message", "version");
+    private static final int ID = 0;
+    private static final int MESSAGE = 1;
+    private static final int VERSION = 2;
+
+    private static final SerializedString ID_NAME = new SerializedString("id");
+    private static final SerializedString MESSAGE_NAME = new SerializedString("message");
+    private static final SerializedString VERSION_NAME = new SerializedString("version");
+
+    // Subject aus den Build-Zeit-Metadaten, ohne reflektive Schema-Generierung
+    private static final String SUBJECT = DtoSchemaMetadata.subjectOf(MyKafkaMessage.class);
+    private static final byte MAGIC_BYTE = 0x0;
+
+    // Größere Puffer werden nach der Nachricht verworfen, damit einzelne Ausreißer nicht dauerhaft Heap belegen
+    private static final int MAX_RETAINED_BUFFER_BYTES = 1024 * 1024;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(() -> new Buffers(jsonFactory));
+
+    private SchemaRegistryClient schemaRegistryClient;
+    private Map<String, ?> configs;
+    private boolean isKey;
+    private volatile SchemaState schemaState;
+    private volatile KafkaJsonSchemaSerializer<MyKafkaMessage> fallback;
+    private SchemaRegistryWatcher watcher;
+    private final Consumer<SchemaChangedEvent> schemaChangeListener = change -> {
+        if (SUBJECT.equals(change.subject())) {
+            invalidateSchema();
+        }
+    };
+
+    /**
+     * Konstruktor für Tests und Benchmarks mit einem vorgegebenen Registry-Client.
+     *
+     * @param schemaRegistryClient der zu verwendende Client
+     */
+    public MyKafkaMessageSerializer(SchemaRegistryClient schemaRegistryClient) {
+        this.schemaRegistryClient = schemaRegistryClient;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        this.configs = configs;
+        this.isKey = isKey;
+        if (configs.get(SCHEMA_REGISTRY_WATCHER_CONFIG) instanceof SchemaRegistryWatcher configured) {
+            this.watcher = configured;
+            configured.addListener(schemaChangeListener);
+        }
+        if (schemaRegistryClient != null) {
+            return;
+        }
+        Object client = configs.get(SCHEMA_REGISTRY_CLIENT_CONFIG);
+        if (client instanceof SchemaRegistryClient configured) {
+            this.schemaRegistryClient = configured;
+        } else {
+            this.schemaRegistryClient = SchemaRegistryClients.create(
+                    String.valueOf(configs.get("schema.registry.url")), 100, configs);
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, MyKafkaMessage message) {
+        if (message == null) {
+            return null;
+        }
+
+        SchemaState state = schemaState();
+        if (state.constraints == null) {
+            return fallback().serialize(topic, message);
+        }
+
+        FieldConstraints constraints = state.constraints;
+        constraints.checkString(ID, message.getId());
+        constraints.checkString(MESSAGE, message.getMessage());
+        constraints.checkInteger(VERSION, message.getVersion());
+
+        Buffers b = buffers.get();
+        try {
+            b.out.reset();
+            b.out.write(MAGIC_BYTE);
+            b.out.write(state.idBytes, 0, state.idBytes.length);
+
+            JsonGenerator gen = b.generator;
+            gen.writeStartObject();
+            gen.writeFieldName(ID_NAME);
+            gen.writeString(message.getId());
+            gen.writeFieldName(MESSAGE_NAME);
+            gen.writeString(message.getMessage());
+            gen.writeFieldName(VERSION_NAME);
+            gen.writeNumber(message.getVersion());
+            gen.writeEndObject();
+            gen.flush();
+
+            return b.out.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Error serializing MyKafkaMessage", e);
+        } finally {
+            if (b.out.capacity() > MAX_RETAINED_BUFFER_BYTES) {
+                buffers.remove();
+            }
+        }
+    }
+
+    /**
+     * Verwirft die gecachte Schema-Version, damit beim nächsten Senden die neueste Version geladen wird.
+     */
+    public void invalidateSchema() {
+        schemaState = null;
+    }
+
+    @Override
+    public void close() {
+        if (watcher != null) {
+            watcher.removeListener(schemaChangeListener);
+        }
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+
+    private SchemaState schemaState() {
+        SchemaState state = schemaState;
+        if (state == null) {
+            synchronized (this) {
+                state = schemaState;
+                if (state == null) {
+                    state = loadSchemaState();
+                    schemaState = state;
+                }
+            }
+        }
+        return state;
+    }
+
+    private SchemaState loadSchemaState() {
+        try {
+            SchemaMetadata latest = schemaRegistryClient.getLatestSchemaMetadata(SUBJECT);
+            Optional<FieldConstraints> constraints = "JSON".equals(latest.getSchemaType())
+                    ? FieldConstraints.compile(new JsonSchema(latest.getSchema()).toJsonNode(), FIELDS)
+                    : Optional.empty();
+            if (constraints.isEmpty()) {
+                log.info("Schema-ID {} lässt sich nicht auf MyKafkaMessage abbilden – Standard-Serializer", latest.getId());
+            }
+            return new SchemaState(latest.getId(), constraints.orElse(null));
+        } catch (Exception e) {
+            throw new SerializationException("Error retrieving latest JSON schema for subject " + SUBJECT, e);
+        }
+    }
+
+    private KafkaJsonSchemaSerializer<MyKafkaMessage> fallback() {
+        KafkaJsonSchemaSerializer<MyKafkaMessage> serializer = fallback;
+        if (serializer == null) {
+            synchronized (this) {
+                serializer = fallback;
+                if (serializer == null) {
+                    serializer = new KafkaJsonSchemaSerializer<>(schemaRegistryClient);
+                    serializer.configure(configs, isKey);
+                    fallback = serializer;
+                }
+            }
+        }
+        return serializer;
+    }
+
+    private static final class SchemaState {
+        private final byte[] idBytes;
+        private final FieldConstraints constraints;
+
+        private SchemaState(int schemaId, FieldConstraints constraints) {
+            this.idBytes = new byte[]{
+                    (byte) (schemaId >>> 24), (byte) (schemaId >>> 16), (byte) (schemaId >>> 8), (byte) schemaId};
+            this.constraints = constraints;
+        }
+    }
+
+    /**
+     * Je Thread wiederverwendeter Ausgabepuffer samt Generator.
+     */
+    private static final class Buffers {
+        private final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream();
+        private final JsonGenerator generator;
+
+        private Buffers(JsonFactory jsonFactory) {
+            try {
+                this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+                // Mehrere Root-Objekte nacheinander ohne Trennzeichen schreiben
+                this.generator.setRootValueSeparator(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+        private ReusableByteArrayOutputStream() {
+            super(512);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+    }
+}
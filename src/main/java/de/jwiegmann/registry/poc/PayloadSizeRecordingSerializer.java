@@ -0,0 +1,72 @@
+package de.jwiegmann.registry.poc;
+
+import de.jwiegmann.registry.poc.compression.PayloadSizeHistograms;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import lombok.NoArgsConstructor;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+
+/**
+ * Producer-Serializer, der an den unter {@link #DELEGATE_CLASS_CONFIG} konfigurierten Serializer delegiert und die
+ * Größe jeder serialisierten Payload an {@link PayloadSizeHistograms} meldet.
+ * <p>
+ * Die Histogramm-Instanz wird über die Producer-Konfiguration ({@link #HISTOGRAMS_CONFIG}) übergeben; fehlt sie,
+ * wird nur delegiert.
+ */
+@NoArgsConstructor
+public class PayloadSizeRecordingSerializer implements Serializer<MyKafkaMessage> {
+
+    /**
+     * Config-Key, unter dem die {@link PayloadSizeHistograms}-Instanz übergeben wird.
+     */
+    public static final String HISTOGRAMS_CONFIG = "kafka.payload-size.histograms";
+
+    /**
+     * Config-Key für die Klasse des eigentlichen Serializers.
+     */
+    public static final String DELEGATE_CLASS_CONFIG = "kafka.payload-size.delegate";
+
+    private Serializer<MyKafkaMessage> delegate;
+    private PayloadSizeHistograms histograms;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object delegateClass = configs.get(DELEGATE_CLASS_CONFIG);
+        if (!(delegateClass instanceof Class<?> type) || !Serializer.class.isAssignableFrom(type)) {
+            throw new ConfigException(DELEGATE_CLASS_CONFIG, delegateClass, "must be a Serializer class");
+        }
+        this.delegate = (Serializer<MyKafkaMessage>) Utils.newInstance(type);
+        this.delegate.configure(configs, isKey);
+
+        if (configs.get(HISTOGRAMS_CONFIG) instanceof PayloadSizeHistograms configured) {
+            this.histograms = configured;
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, MyKafkaMessage message) {
+        return record(topic, delegate.serialize(topic, message));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, MyKafkaMessage message) {
+        return record(topic, delegate.serialize(topic, headers, message));
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private byte[] record(String topic, byte[] data) {
+        if (histograms != null && data != null) {
+            histograms.record(topic, data.length);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,91 @@
+package de.jwiegmann.registry.poc;
+
+import de.jwiegmann.registry.poc.control.SchemaTrafficTracker;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer;
+import lombok.NoArgsConstructor;
+import org.apache.kafka.common.header.Headers;
+
+import java.util.Map;
+
+/**
+ * {@link KafkaJsonSchemaDeserializer}, der die Schema-ID jedes Records an den {@link SchemaTrafficTracker} meldet.
+ * <p>
+ * Die Schema-ID wird direkt aus dem Confluent Wire-Format (Magic Byte + 4 Byte Big-Endian ID) gelesen,
+ * ohne zusätzliche Allokationen. Der Tracker wird über die Consumer-Konfiguration
+ * ({@link #TRACKER_CONFIG}) übergeben; fehlt er, verhält sich die Klasse wie der Basis-Deserializer.
+ * Ein unter {@link MyKafkaMessageSerializer#SCHEMA_REGISTRY_CLIENT_CONFIG} übergebener Registry-Client wird
+ * übernommen, damit Producer, Consumer und Vorwärmen denselben Schema-Cache nutzen.
+ */
+@NoArgsConstructor
+public class SchemaTrafficTrackingDeserializer<T> extends KafkaJsonSchemaDeserializer<T> {
+
+    /**
+     * Config-Key, unter dem die {@link SchemaTrafficTracker}-Instanz übergeben wird.
+     */
+    public static final String TRACKER_CONFIG = "schema.traffic.tracker";
+
+    private static final byte MAGIC_BYTE = 0x0;
+
+    private SchemaTrafficTracker tracker;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (configs.get(MyKafkaMessageSerializer.SCHEMA_REGISTRY_CLIENT_CONFIG) instanceof SchemaRegistryClient client) {
+            // Vor super.configure setzen, damit kein eigener Client erzeugt wird
+            this.schemaRegistry = client;
+        }
+        super.configure(configs, isKey);
+        Object configured = configs.get(TRACKER_CONFIG);
+        if (configured instanceof SchemaTrafficTracker schemaTrafficTracker) {
+            this.tracker = schemaTrafficTracker;
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (tracker == null || data == null) {
+            return deserializeValue(topic, headers, data);
+        }
+
+        int schemaId = schemaId(data);
+        T result;
+        try {
+            result = deserializeValue(topic, headers, data);
+        } catch (RuntimeException e) {
+            tracker.recordFailure(topic, schemaId, data.length);
+            throw e;
+        }
+        tracker.recordSuccess(topic, schemaId, data.length);
+        return result;
+    }
+
+    /**
+     * Deserialisiert und validiert den Record. Unterklassen können hier einen anderen Validierungsweg einhängen,
+     * ohne die Zählung zu verlieren.
+     *
+     * @param topic   das Topic des Records
+     * @param headers die Record-Header
+     * @param data    die rohen Record-Bytes
+     * @return das deserialisierte Objekt
+     */
+    protected T deserializeValue(String topic, Headers headers, byte[] data) {
+        return super.deserialize(topic, headers, data);
+    }
+
+    /**
+     * Liest die Schema-ID aus dem Confluent Wire-Format.
+     *
+     * @param data die rohen Record-Bytes
+     * @return die Schema-ID oder {@link SchemaTrafficTracker#UNKNOWN_SCHEMA_ID}
+     */
+    static int schemaId(byte[] data) {
+        if (data.length < 5 || data[0] != MAGIC_BYTE) {
+            return SchemaTrafficTracker.UNKNOWN_SCHEMA_ID;
+        }
+        return ((data[1] & 0xFF) << 24)
+                | ((data[2] & 0xFF) << 16)
+                | ((data[3] & 0xFF) << 8)
+                | (data[4] & 0xFF);
+    }
+}
@@ -1,64 +1,384 @@
 package de.jwiegmann.registry.poc;
 
-import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.SchemaTrafficTracker;
+import de.jwiegmann.registry.poc.validation.StreamingValidationException;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.support.serializer.FailedDeserializationInfo;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.everit.json.schema.ValidationException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.scheduling.annotation.Scheduled;
 
-import java.util.function.Function;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Behandelt fehlgeschlagene Deserialisierungen bzw. Schema-Validierungen.
+ * <p>
+ * Vom Payload wird nur ein begrenzter Präfix ausgewertet: ein UTF-8-sicherer Textausschnitt oder – bei
+ * Binärdaten – ein Hex-Dump. Schema-ID und die JSON-Pointer der Verletzungen werden als strukturierte
+ * Log-Felder ausgegeben. Identische Fehler (gleiches Topic, gleiche Schema-ID, gleiche Ursache) werden
+ * innerhalb von {@link #AGGREGATION_WINDOW} nur einmal vollständig geloggt und danach gezählt. Es werden höchstens
+ * {@link #MAX_WINDOWS} Zeitfenster gehalten (bei Überlauf wird das älteste verdrängt); abgelaufene Fenster räumt
+ * {@link #flushExpired()} periodisch ab und loggt dabei ihre unterdrückten Fehler.
+ * <p>
+ * Wird vom {@code DefaultErrorHandler} des Listener-Containers aufgerufen, sobald der
+ * {@code ErrorHandlingDeserializer} eine {@link DeserializationException} meldet, und protokolliert nur – das
+ * Schreiben in das Dead-Letter-Topic übernimmt der {@link de.jwiegmann.registry.poc.control.DeadLetterPublisher}.
+ * Andere Listener-Fehler werden ohne Payload-Auswertung geloggt.
+ */
 @Slf4j
 @NoArgsConstructor
-public class SchemaValidationErrorHandler implements Function<FailedDeserializationInfo, MyKafkaMessage> {
+public class SchemaValidationErrorHandler implements ConsumerRecordRecoverer {
 
     private static final String SEPARATOR = "═".repeat(80);
 
+    /**
+     * Maximale Anzahl Payload-Bytes, die als Text dekodiert werden.
+     */
+    static final int MAX_TEXT_BYTES = 512;
+
+    /**
+     * Maximale Anzahl Payload-Bytes, die als Hex-Dump ausgegeben werden.
+     */
+    static final int MAX_HEX_BYTES = 64;
+
+    /**
+     * Maximale Anzahl ausgegebener Verletzungs-Pointer und maximale Länge der Fehlerursache.
+     */
+    static final int MAX_VIOLATIONS = 10;
+    static final int MAX_REASON_CHARS = 300;
+
+    /**
+     * Zeitfenster, in dem identische Fehler zusammengefasst werden.
+     */
+    static final Duration AGGREGATION_WINDOW = Duration.ofSeconds(60);
+
+    /**
+     * Maximale Anzahl gleichzeitig gehaltener Zeitfenster (unterschiedliche Fehler-Schlüssel).
+     */
+    static final int MAX_WINDOWS = 1_000;
+
+    // Confluent Wire-Format: Magic Byte + 4 Byte Schema-ID vor dem eigentlichen Payload
+    private static final int WIRE_HEADER_LENGTH = 5;
+
+    // Begrenzt die Länge der Cause-Kette, falls diese zyklisch ist
+    private static final int MAX_CAUSE_DEPTH = 32;
+
+    // In Einfügereihenfolge = Reihenfolge der Fensterstarts (ein neu gestartetes Fenster wird ans Ende gehängt),
+    // das älteste Fenster steht also immer vorn; geschützt durch windows selbst
+    private final Map<FailureKey, FailureWindow> windows = new LinkedHashMap<>();
+
     @Override
-    public MyKafkaMessage apply(FailedDeserializationInfo info) {
+    public void accept(ConsumerRecord<?, ?> record, Exception exception) {
+        DeserializationException deserialization = deserializationFailure(exception);
+        if (deserialization == null) {
+            log.error("Listener für {}-{}@{} fehlgeschlagen", record.topic(), record.partition(), record.offset(),
+                    exception);
+            return;
+        }
 
-        Throwable rootCause = getRootCause(info.getException());
-        String reason = (rootCause != null) ? rootCause.getMessage() : "Unknown reason";
+        Throwable failure = deserialization.getCause() != null ? deserialization.getCause() : deserialization;
+        byte[] data = deserialization.getData();
+        int schemaId = data != null ? SchemaTrafficTrackingDeserializer.schemaId(data) : SchemaTrafficTracker.UNKNOWN_SCHEMA_ID;
 
-        log.error("\n\n" +
+        Throwable rootCause = getRootCause(failure);
+        StreamingValidationException streaming = findCause(failure, StreamingValidationException.class);
+        ValidationException validation = findCause(failure, ValidationException.class);
+        String reason = truncate(streaming != null ? streaming.getErrorMessage()
+                : validation != null ? validation.getErrorMessage()
+                : rootCause != null ? rootCause.getMessage() : "Unknown reason");
+        List<String> violations = violations(failure);
+
+        FailureKey key = new FailureKey(record.topic(), schemaId,
+                rootCause != null ? rootCause.getClass().getName() : null, violations);
+        long suppressed = register(key, System.nanoTime());
+        if (suppressed < 0) {
+            return; // identischer Fehler im laufenden Zeitfenster, nur gezählt
+        }
+
+        log.atError()
+                .addKeyValue("topic", record.topic())
+                .addKeyValue("schemaId", schemaId)
+                .addKeyValue("payloadBytes", data != null ? data.length : 0)
+                .addKeyValue("violations", violations)
+                .addKeyValue("suppressedInLastWindow", suppressed)
+                .setMessage("\n\n" +
                         "🛑🛑🛑 {} 🛑🛑🛑\n\n" +
                         "SCHEMA VALIDATION FAILED\n\n" +
                         "Topic      : {}\n" +
+                        "Schema-ID  : {}\n" +
                         "Raw Payload: {}\n" +
                         "Exception  : {}\n" +
-                        "Reason     : {}\n\n" +
-                        "🛑🛑🛑 {} 🛑🛑🛑\n",
-                SEPARATOR,
-                info.getTopic(),
-                formatBytes(info.getData()),
-                info.getException(),
-                reason,
-                SEPARATOR
-        );
+                        "Reason     : {}\n" +
+                        "Violations : {}\n" +
+                        "Suppressed : {} identical failures in the last {}s\n\n" +
+                        "🛑🛑🛑 {} 🛑🛑🛑\n")
+                .addArgument(SEPARATOR)
+                .addArgument(record.topic())
+                .addArgument(schemaId)
+                .addArgument(() -> formatBytes(data))
+                .addArgument(failure.getClass().getName())
+                .addArgument(reason)
+                .addArgument(violations)
+                .addArgument(suppressed)
+                .addArgument(AGGREGATION_WINDOW.toSeconds())
+                .addArgument(SEPARATOR)
+                .log();
+    }
+
+    /**
+     * Sucht die {@link DeserializationException} des Record-Werts in der Ursachen-Kette.
+     *
+     * @param exception der vom Container gemeldete Fehler
+     * @return die Exception, oder {@code null}, wenn der Fehler nicht aus der Deserialisierung des Werts stammt
+     */
+    public static DeserializationException deserializationFailure(Throwable exception) {
+        DeserializationException deserialization = findCause(exception, DeserializationException.class);
+        return deserialization != null && !deserialization.isKey() ? deserialization : null;
+    }
+
+    /**
+     * Die JSON-Pointer der Schema-Verletzungen eines Deserialisierungsfehlers, begrenzt auf {@link #MAX_VIOLATIONS}.
+     *
+     * @param exception der Fehler (oder eine Exception, die ihn als Ursache enthält)
+     * @return die Pointer samt Schlüsselwort, leer, wenn der Fehler keine Schema-Verletzung ist
+     */
+    public static List<String> violations(Throwable exception) {
+        StreamingValidationException streaming = findCause(exception, StreamingValidationException.class);
+        if (streaming != null) {
+            return List.of(streaming.getPointerToViolation() + " (" + streaming.getKeyword() + ")");
+        }
+        ValidationException validation = findCause(exception, ValidationException.class);
+        return validation != null ? violationPointers(validation) : List.of();
+    }
+
+    /**
+     * Zählt einen Fehler im Zeitfenster seines Schlüssels.
+     *
+     * @return {@code -1}, wenn der Fehler im laufenden Fenster bereits geloggt wurde, sonst die Anzahl
+     * der im abgelaufenen Fenster unterdrückten identischen Fehler
+     */
+    long register(FailureKey key, long nowNanos) {
+        long suppressed = 0;
+        Map.Entry<FailureKey, FailureWindow> evicted = null;
+        synchronized (windows) {
+            FailureWindow window = windows.get(key);
+            if (window != null && nowNanos - window.startNanos < AGGREGATION_WINDOW.toNanos()) {
+                window.count++;
+                return -1;
+            }
+            if (window != null) {
+                // Neu gestartetes Fenster ans Ende hängen
+                windows.remove(key);
+                suppressed = window.count;
+            } else if (windows.size() >= MAX_WINDOWS) {
+                Iterator<Map.Entry<FailureKey, FailureWindow>> oldest = windows.entrySet().iterator();
+                evicted = oldest.next();
+                oldest.remove();
+            }
+            windows.put(key, new FailureWindow(nowNanos));
+        }
+        if (evicted != null && evicted.getValue().count > 0) {
+            logSuppressed(evicted.getKey(), evicted.getValue().count);
+        }
+        return suppressed;
+    }
+
+    /**
+     * Entfernt abgelaufene Zeitfenster und loggt deren unterdrückte Fehler, damit Zählungen für Fehler, die nicht
+     * wiederkehren, nicht verloren gehen.
+     */
+    @Scheduled(fixedDelayString = "${schema.validation.error-aggregation.flush-interval:PT10S}")
+    public void flushExpired() {
+        flushExpired(System.nanoTime());
+    }
+
+    /**
+     * Entfernt alle Zeitfenster, die zum angegebenen Zeitpunkt abgelaufen sind.
+     *
+     * @return die Summe der dabei gemeldeten unterdrückten Fehler
+     */
+    long flushExpired(long nowNanos) {
+        List<Map.Entry<FailureKey, FailureWindow>> expired = new ArrayList<>();
+        synchronized (windows) {
+            // Nach Fensterstart sortiert: nur die abgelaufenen Fenster am Anfang ansehen
+            Iterator<Map.Entry<FailureKey, FailureWindow>> iterator = windows.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<FailureKey, FailureWindow> entry = iterator.next();
+                if (nowNanos - entry.getValue().startNanos < AGGREGATION_WINDOW.toNanos()) {
+                    break;
+                }
+                iterator.remove();
+                expired.add(entry);
+            }
+        }
+        long reported = 0;
+        for (Map.Entry<FailureKey, FailureWindow> entry : expired) {
+            long suppressed = entry.getValue().count;
+            if (suppressed > 0) {
+                logSuppressed(entry.getKey(), suppressed);
+                reported += suppressed;
+            }
+        }
+        return reported;
+    }
+
+    /**
+     * Anzahl der aktuell gehaltenen Zeitfenster.
+     */
+    int windowCount() {
+        synchronized (windows) {
+            return windows.size();
+        }
+    }
 
-        return null; // Returning null means the record is skipped, no listener invocation
+    private static void logSuppressed(FailureKey key, long suppressed) {
+        log.atWarn()
+                .addKeyValue("topic", key.topic())
+                .addKeyValue("schemaId", key.schemaId())
+                .addKeyValue("violations", key.violations())
+                .addKeyValue("suppressedInLastWindow", suppressed)
+                .log("{} weitere identische Schema-Validierungsfehler auf {} (Schema-ID {}, {}) unterdrückt",
+                        suppressed, key.topic(), key.schemaId(), key.causeType());
     }
 
-    private String formatBytes(byte[] data) {
+    /**
+     * Formatiert einen begrenzten Ausschnitt des Payloads, ohne den gesamten Payload zu kopieren.
+     * Gültiges UTF-8 wird als Text ausgegeben, alles andere als Hex-Dump.
+     */
+    static String formatBytes(byte[] data) {
         if (data == null) {
             return "[no payload data]";
         }
 
-        try {
-            String result = new String(data);
-            if (result.isBlank()) {
+        int offset = data.length >= WIRE_HEADER_LENGTH && data[0] == 0x0 ? WIRE_HEADER_LENGTH : 0;
+        int length = data.length - offset;
+        if (length == 0) {
+            return "[empty payload]";
+        }
+
+        String text = decodeUtf8Prefix(data, offset, Math.min(length, MAX_TEXT_BYTES));
+        if (text != null) {
+            if (text.isBlank()) {
                 return "[empty payload]";
             }
-            return result;
-        } catch (Exception e) {
-            return "[unreadable payload bytes]";
+            return length > MAX_TEXT_BYTES
+                    ? text + "… [" + length + " bytes total]"
+                    : text;
+        }
+
+        int hexLength = Math.min(length, MAX_HEX_BYTES);
+        String hex = HexFormat.ofDelimiter(" ").formatHex(data, offset, offset + hexLength);
+        return "[binary] " + hex + (length > hexLength ? " … [" + length + " bytes total]" : "");
+    }
+
+    /**
+     * Dekodiert einen UTF-8-Präfix, ohne eine Multibyte-Sequenz am Ende zu zerschneiden.
+     *
+     * @return der Text, oder {@code null}, wenn der Ausschnitt kein gültiges UTF-8 ist
+     */
+    private static String decodeUtf8Prefix(byte[] data, int offset, int maxLength) {
+        int end = offset + maxLength;
+        if (end < data.length) {
+            // Auf den Anfang einer eventuell abgeschnittenen Sequenz zurückgehen (max. 3 Folgebytes)
+            int limit = Math.max(offset, end - 3);
+            while (end > limit && (data[end] & 0xC0) == 0x80) {
+                end--;
+            }
+        }
+
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        try {
+            String text = decoder.decode(ByteBuffer.wrap(data, offset, end - offset)).toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isISOControl(c) && !Character.isWhitespace(c)) {
+                    return null;
+                }
+            }
+            return text;
+        } catch (CharacterCodingException e) {
+            return null;
         }
     }
 
-    private Throwable getRootCause(Throwable throwable) {
+    /**
+     * Sammelt die JSON-Pointer der einzelnen Verletzungen (Blätter des Fehlerbaums), begrenzt auf
+     * {@link #MAX_VIOLATIONS}.
+     */
+    public static List<String> violationPointers(ValidationException exception) {
+        List<String> pointers = new ArrayList<>();
+        collectPointers(exception, pointers);
+        return pointers;
+    }
+
+    private static void collectPointers(ValidationException exception, List<String> pointers) {
+        if (pointers.size() >= MAX_VIOLATIONS) {
+            return;
+        }
+        List<ValidationException> causes = exception.getCausingExceptions();
+        if (causes == null || causes.isEmpty()) {
+            String entry = exception.getPointerToViolation()
+                    + (exception.getKeyword() != null ? " (" + exception.getKeyword() + ")" : "");
+            if (!pointers.contains(entry)) {
+                pointers.add(entry);
+            }
+            return;
+        }
+        for (ValidationException cause : causes) {
+            collectPointers(cause, pointers);
+        }
+    }
+
+    private static <E extends Throwable> E findCause(Throwable throwable, Class<E> type) {
         Throwable cause = throwable;
-        while (cause != null && cause.getCause() != null) {
+        for (int depth = 0; cause != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (type.isInstance(cause)) {
+                return type.cast(cause);
+            }
+            cause = cause.getCause();
+        }
+        return null;
+    }
+
+    private static Throwable getRootCause(Throwable throwable) {
+        Throwable cause = throwable;
+        for (int depth = 0; cause != null && cause.getCause() != null && depth < MAX_CAUSE_DEPTH; depth++) {
             cause = cause.getCause();
         }
         return cause;
     }
-}
\ No newline at end of file
+
+    private static String truncate(String value) {
+        if (value == null || value.length() <= MAX_REASON_CHARS) {
+            return value;
+        }
+        return value.substring(0, MAX_REASON_CHARS) + "…";
+    }
+
+    record FailureKey(String topic, int schemaId, String causeType, List<String> violations) {
+    }
+
+    private static final class FailureWindow {
+        private final long startNanos;
+        private long count;
+
+        private FailureWindow(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package de.jwiegmann.registry.poc;
+
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.jwiegmann.registry.poc.control.SchemaTrafficTracker;
+import de.jwiegmann.registry.poc.validation.StreamingJsonSchemaValidator;
+import de.jwiegmann.registry.poc.validation.StreamingValidationException;
+import de.jwiegmann.registry.poc.validation.StreamingValidationLimits;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deserializer mit Fail-Fast-Validierung: Der Payload wird token-weise gegen das registrierte JSON Schema geprüft
+ * und bei der ersten Verletzung verworfen, bevor ein {@code JsonNode}-Baum entsteht. Nur gültige Payloads werden
+ * anschließend direkt auf den Zieltyp gebunden.
+ * <p>
+ * Die kompilierten Validatoren werden je Schema-ID gecacht. Enthält ein Schema Schlüsselwörter, die der
+ * {@link StreamingJsonSchemaValidator} nicht unterstützt, wird für diese Schema-ID der baumbasierte Weg des
+ * {@link io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer} verwendet. Auch dort gelten die Limits:
+ * Der Payload wird vorher einmal mit denselben {@code StreamReadConstraints} gelesen, weil der Basis-Deserializer
+ * ohne Grenzen parst.
+ */
+@Slf4j
+@NoArgsConstructor
+public class StreamingJsonSchemaDeserializer<T> extends SchemaTrafficTrackingDeserializer<T> {
+
+    public static final String MAX_PAYLOAD_BYTES_CONFIG = "schema.validation.streaming.max-payload-bytes";
+    public static final String MAX_NESTING_DEPTH_CONFIG = "schema.validation.streaming.max-nesting-depth";
+    public static final String MAX_STRING_LENGTH_CONFIG = "schema.validation.streaming.max-string-length";
+
+    private static final String JSON_VALUE_TYPE_CONFIG = "json.value.type";
+    private static final String FAIL_UNKNOWN_PROPERTIES_CONFIG = "json.fail.unknown.properties";
+    private static final int WIRE_HEADER_LENGTH = 5;
+
+    private final Map<Integer, Optional<StreamingJsonSchemaValidator>> validators = new ConcurrentHashMap<>();
+
+    private StreamingValidationLimits limits = StreamingValidationLimits.DEFAULTS;
+    private ObjectReader valueReader;
+    private ObjectMapper limitedMapper = new ObjectMapper(limits.jsonFactory());
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        super.configure(configs, isKey);
+
+        StreamingValidationLimits defaults = StreamingValidationLimits.DEFAULTS;
+        this.limits = new StreamingValidationLimits(
+                intConfig(configs, MAX_PAYLOAD_BYTES_CONFIG, defaults.maxPayloadBytes()),
+                intConfig(configs, MAX_NESTING_DEPTH_CONFIG, defaults.maxNestingDepth()),
+                intConfig(configs, MAX_STRING_LENGTH_CONFIG, defaults.maxStringLength()));
+        this.limitedMapper = new ObjectMapper(limits.jsonFactory());
+
+        Object failUnknown = configs.get(FAIL_UNKNOWN_PROPERTIES_CONFIG);
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                failUnknown == null || Boolean.parseBoolean(failUnknown.toString()));
+        this.valueReader = mapper.readerFor(valueType(configs.get(JSON_VALUE_TYPE_CONFIG)));
+    }
+
+    @Override
+    protected T deserializeValue(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return super.deserializeValue(topic, headers, data);
+        }
+        if (data.length - WIRE_HEADER_LENGTH > limits.maxPayloadBytes()) {
+            // Übergroße Payloads werden nicht einmal angefasst
+            throw new StreamingValidationException("#", "maxPayloadBytes",
+                    "payload of " + data.length + " bytes exceeds limit of " + limits.maxPayloadBytes());
+        }
+
+        int schemaId = schemaId(data);
+        if (schemaId == SchemaTrafficTracker.UNKNOWN_SCHEMA_ID) {
+            return super.deserializeValue(topic, headers, data);
+        }
+
+        Optional<StreamingJsonSchemaValidator> validator = validators.computeIfAbsent(schemaId, this::compile);
+        if (validator.isEmpty()) {
+            return deserializeUnsupported(schemaId, topic, headers, data);
+        }
+
+        int length = data.length - WIRE_HEADER_LENGTH;
+        validator.get().validate(data, WIRE_HEADER_LENGTH, length);
+        return bind(schemaId, data, WIRE_HEADER_LENGTH, length);
+    }
+
+    /**
+     * Deserialisiert einen Record, dessen Schema der {@link StreamingJsonSchemaValidator} nicht kompilieren kann.
+     * Standardmäßig der baumbasierte Weg des Basis-Deserializers, nachdem {@link #readTree} die Limits geprüft hat;
+     * Unterklassen können hier selbst validieren und anschließend über {@link #bind} binden.
+     *
+     * @param schemaId die Schema-ID aus dem Wire-Format
+     * @param topic    das Topic des Records
+     * @param headers  die Record-Header
+     * @param data     die rohen Record-Bytes
+     * @return das deserialisierte Objekt
+     */
+    protected T deserializeUnsupported(int schemaId, String topic, Headers headers, byte[] data) {
+        readTree(schemaId, data, WIRE_HEADER_LENGTH, data.length - WIRE_HEADER_LENGTH);
+        return super.deserializeValue(topic, headers, data);
+    }
+
+    /**
+     * Liest einen Payload als Baum, unter denselben Limits wie der {@link StreamingJsonSchemaValidator}.
+     *
+     * @param schemaId die Schema-ID aus dem Wire-Format
+     * @param data     die rohen Record-Bytes
+     * @param offset   Beginn des JSON in {@code data}
+     * @param length   Länge des JSON
+     * @return der Baum
+     * @throws StreamingValidationException wenn Tiefe, String- oder Dokumentlänge die Limits überschreiten
+     */
+    protected JsonNode readTree(int schemaId, byte[] data, int offset, int length) {
+        try {
+            return limitedMapper.readTree(data, offset, length);
+        } catch (StreamConstraintsException e) {
+            throw new StreamingValidationException("#", "limits", e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new SerializationException("Error parsing JSON message for id " + schemaId, e);
+        }
+    }
+
+    /**
+     * Bindet einen bereits validierten Payload auf den Zieltyp. Unterklassen können hier eine eigene Abbildung
+     * je Schema-ID einhängen.
+     *
+     * @param schemaId die Schema-ID aus dem Wire-Format
+     * @param data     die rohen Record-Bytes
+     * @param offset   Beginn des JSON in {@code data}
+     * @param length   Länge des JSON
+     * @return das gebundene Objekt
+     */
+    protected T bind(int schemaId, byte[] data, int offset, int length) {
+        try {
+            return valueReader.readValue(data, offset, length);
+        } catch (IOException e) {
+            throw new SerializationException("Error binding JSON message for id " + schemaId, e);
+        }
+    }
+
+    private Optional<StreamingJsonSchemaValidator> compile(int schemaId) {
+        try {
+            ParsedSchema schema = schemaRegistry.getSchemaById(schemaId);
+            if (!(schema instanceof JsonSchema jsonSchema)) {
+                return Optional.empty();
+            }
+            Optional<StreamingJsonSchemaValidator> validator =
+                    StreamingJsonSchemaValidator.compile(jsonSchema.toJsonNode(), limits);
+            if (validator.isEmpty()) {
+                log.info("Schema-ID {} enthält nicht unterstützte Schlüsselwörter – baumbasierte Validierung", schemaId);
+            }
+            return validator;
+        } catch (Exception e) {
+            throw new SerializationException("Error retrieving JSON schema for id " + schemaId, e);
+        }
+    }
+
+    private static Class<?> valueType(Object configured) {
+        if (configured instanceof Class<?> type) {
+            return type;
+        }
+        if (configured == null) {
+            return Object.class;
+        }
+        try {
+            return Class.forName(configured.toString());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown " + JSON_VALUE_TYPE_CONFIG + ": " + configured, e);
+        }
+    }
+
+    private static int intConfig(Map<String, ?> configs, String key, int defaultValue) {
+        Object value = configs.get(key);
+        return value != null ? Integer.parseInt(value.toString()) : defaultValue;
+    }
+}
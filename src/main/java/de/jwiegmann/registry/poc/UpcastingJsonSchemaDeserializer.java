@@ -0,0 +1,74 @@
+package de.jwiegmann.registry.poc;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.upcast.MyKafkaMessageUpcaster;
+import de.jwiegmann.registry.poc.upcast.UpcastProperties;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import lombok.NoArgsConstructor;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.everit.json.schema.ValidationException;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * {@link StreamingJsonSchemaDeserializer}, der validierte Payloads nicht reflektiv bindet, sondern über den je
+ * Schema-ID kompilierten Plan des {@link MyKafkaMessageUpcaster} – so werden auch ältere Versionen mit umbenannten,
+ * entfallenen oder fehlenden Feldern ohne Zwischenbaum auf {@link MyKafkaMessage} abgebildet.
+ * <p>
+ * Der Upcaster wird über die Consumer-Konfiguration ({@link #UPCASTER_CONFIG}) übergeben, damit alle Consumer
+ * dieselben Pläne teilen. Schema-IDs, die der Streaming-Validator nicht unterstützt, werden baumbasiert gegen ihr
+ * {@link JsonSchema} validiert und anschließend ebenfalls über den Plan gebunden – das reflektive Binden des
+ * Basis-Deserializers würde an umbenannten oder entfallenen Feldern scheitern.
+ */
+@NoArgsConstructor
+public class UpcastingJsonSchemaDeserializer extends StreamingJsonSchemaDeserializer<MyKafkaMessage> {
+
+    /**
+     * Config-Key, unter dem die {@link MyKafkaMessageUpcaster}-Instanz übergeben wird.
+     */
+    public static final String UPCASTER_CONFIG = "schema.upcast.upcaster";
+
+    private static final int WIRE_HEADER_LENGTH = 5;
+
+    private MyKafkaMessageUpcaster upcaster;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        super.configure(configs, isKey);
+        this.upcaster = configs.get(UPCASTER_CONFIG) instanceof MyKafkaMessageUpcaster configured
+                ? configured
+                : new MyKafkaMessageUpcaster(new UpcastProperties(true, null, null));
+    }
+
+    @Override
+    protected MyKafkaMessage deserializeUnsupported(int schemaId, String topic, Headers headers, byte[] data) {
+        ParsedSchema schema;
+        try {
+            schema = schemaRegistry.getSchemaById(schemaId);
+        } catch (IOException | RestClientException e) {
+            throw new SerializationException("Error retrieving JSON schema for id " + schemaId, e);
+        }
+        if (!(schema instanceof JsonSchema jsonSchema)) {
+            return super.deserializeUnsupported(schemaId, topic, headers, data);
+        }
+
+        int length = data.length - WIRE_HEADER_LENGTH;
+        try {
+            jsonSchema.validate(readTree(schemaId, data, WIRE_HEADER_LENGTH, length));
+        } catch (ValidationException e) {
+            throw new SerializationException("Validation error in JSON message for id " + schemaId, e);
+        } catch (IOException e) {
+            throw new SerializationException("Error parsing JSON message for id " + schemaId, e);
+        }
+        return bind(schemaId, data, WIRE_HEADER_LENGTH, length);
+    }
+
+    @Override
+    protected MyKafkaMessage bind(int schemaId, byte[] data, int offset, int length) {
+        return upcaster.read(upcaster.planFor(schemaId, schemaRegistry), data, offset, length);
+    }
+}
@@ -0,0 +1,40 @@
+package de.jwiegmann.registry.poc.boundary;
+
+import de.jwiegmann.registry.poc.control.dto.AsyncApiDocument;
+import de.jwiegmann.registry.poc.util.AsyncApiGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Liefert das generierte AsyncAPI-Dokument aus dem Speicher, mit ETag und {@code If-None-Match}-Unterstützung.
+ */
+@RestController
+@RequiredArgsConstructor
+public class AsyncApiResource {
+
+    private final AsyncApiGenerator generator;
+
+    /**
+     * Gibt das AsyncAPI-Dokument zurück, oder {@code 304 Not Modified}, wenn der Client die aktuelle Fassung hat.
+     *
+     * @param request die Anfrage (für {@code If-None-Match})
+     * @return das Dokument als YAML
+     */
+    @GetMapping(value = "/async_api.yaml", produces = MediaType.APPLICATION_YAML_VALUE)
+    public ResponseEntity<byte[]> asyncApi(WebRequest request) {
+        AsyncApiDocument document = generator.getDocument();
+        if (request.checkNotModified(document.etag())) {
+            // Spring antwortet mit 304 und dem ETag
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(document.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(document.yaml());
+    }
+}
@@ -0,0 +1,33 @@
+package de.jwiegmann.registry.poc.boundary;
+
+import de.jwiegmann.registry.poc.control.DeadLetterReprocessor;
+import de.jwiegmann.registry.poc.control.dto.DeadLetterReprocessingRequest;
+import de.jwiegmann.registry.poc.control.dto.DeadLetterReprocessingSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST-Schnittstelle, um Records aus einem Dead-Letter-Topic nach einer Schema-Korrektur erneut zu verarbeiten.
+ */
+@RestController
+@RequestMapping("/dead-letter")
+@RequiredArgsConstructor
+public class DeadLetterResource {
+
+    private final DeadLetterReprocessor reprocessor;
+
+    /**
+     * Validiert den angegebenen Bereich des Dead-Letter-Topics erneut und schreibt gültige Records zurück.
+     * Läuft synchron; die Antwort enthält die verbleibenden Fehlergründe.
+     *
+     * @param request Topic, Schema-Version, Offset-Bereich und Parallelität
+     * @return die Zusammenfassung
+     */
+    @PostMapping("/reprocess")
+    public DeadLetterReprocessingSummary reprocess(@RequestBody DeadLetterReprocessingRequest request) {
+        return reprocessor.reprocess(request);
+    }
+}
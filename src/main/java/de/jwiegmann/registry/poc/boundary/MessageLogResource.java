@@ -0,0 +1,48 @@
+package de.jwiegmann.registry.poc.boundary;
+
+import de.jwiegmann.registry.poc.control.dto.LoggedMessage;
+import de.jwiegmann.registry.poc.store.MessageLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST-Schnittstelle zum Lesen der im lokalen {@link MessageLog} gespeicherten Nachrichten.
+ */
+@RestController
+@RequestMapping("/messages")
+@RequiredArgsConstructor
+public class MessageLogResource {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final MessageLog messageLog;
+
+    /**
+     * Gibt die zuletzt gespeicherten Nachrichten zurück.
+     *
+     * @param limit die maximale Anzahl (Standard: 100, höchstens 10.000)
+     * @return die Nachrichten in Offset-Reihenfolge
+     */
+    @GetMapping("/recent")
+    public List<LoggedMessage> recent(@RequestParam(defaultValue = "100") int limit) {
+        return messageLog.recent(Math.min(Math.max(limit, 0), MAX_LIMIT));
+    }
+
+    /**
+     * Gibt die zuletzt gespeicherte Nachricht mit der angegebenen ID zurück.
+     *
+     * @param id die Nachrichten-ID
+     * @return die Nachricht, oder 404
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<LoggedMessage> byId(@PathVariable String id) {
+        return ResponseEntity.of(messageLog.findById(id));
+    }
+}
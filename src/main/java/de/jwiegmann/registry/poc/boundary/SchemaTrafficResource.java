@@ -0,0 +1,53 @@
+package de.jwiegmann.registry.poc.boundary;
+
+import de.jwiegmann.registry.poc.control.SchemaTrafficTracker;
+import de.jwiegmann.registry.poc.control.dto.SchemaTrafficStats;
+import de.jwiegmann.registry.poc.control.dto.SchemaVersionSeen;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * REST-Schnittstelle, um vor dem Entfernen alter Schema-Versionen zu prüfen, ob Producer sie noch verwenden.
+ */
+@RestController
+@RequestMapping("/schema-traffic")
+@RequiredArgsConstructor
+public class SchemaTrafficResource {
+
+    private final SchemaTrafficTracker tracker;
+
+    /**
+     * Gibt die zuletzt zusammengeführte Statistik je Topic × Schema-ID × Version zurück.
+     *
+     * @return die Verkehrsstatistik
+     */
+    @GetMapping
+    public List<SchemaTrafficStats> getStats() {
+        return tracker.getSnapshot();
+    }
+
+    /**
+     * Prüft, ob eine Subject-Version in den letzten {@code hours} Stunden empfangen wurde.
+     *
+     * @param subject das Subject in der Registry
+     * @param version die Version des Subjects
+     * @param hours   das Zeitfenster in Stunden (Standard: 24)
+     * @return ob und wann die Version zuletzt gesehen wurde
+     */
+    @GetMapping("/subjects/{subject}/versions/{version}/seen")
+    public SchemaVersionSeen seen(@PathVariable String subject,
+                                  @PathVariable int version,
+                                  @RequestParam(defaultValue = "24") long hours) {
+        Instant lastSeen = tracker.lastSeen(subject, version).orElse(null);
+        boolean seen = lastSeen != null && lastSeen.isAfter(Instant.now().minus(Duration.ofHours(hours)));
+        return new SchemaVersionSeen(subject, version, hours, seen, lastSeen);
+    }
+}
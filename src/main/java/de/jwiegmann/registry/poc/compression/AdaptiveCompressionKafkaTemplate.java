@@ -0,0 +1,110 @@
+package de.jwiegmann.registry.poc.compression;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link KafkaTemplate}, das je Topic den Producer mit dem vom {@link CompressionSelector} gewählten
+ * {@link CompressionProfile} verwendet.
+ * <p>
+ * {@code compression.type}, {@code batch.size} und {@code linger.ms} sind Producer-Einstellungen; je Profil – also
+ * je Größenstufe, nicht je Topic – wird daher eine eigene Kopie der Basis-Factory angelegt. Topics ohne Profil
+ * verwenden die Basis-Factory.
+ * <p>
+ * Wechselt das Profil eines Topics, wird der bisherige Producer beim nächsten Senden auf dieses Topic zuerst
+ * geleert ({@code flush()}): Seine noch wartenden Batches sind dann bestätigt, bevor der neue Producer Records für
+ * dieselben Partitionen annimmt, und die Reihenfolge je Partition bleibt erhalten. Das gilt für aufeinanderfolgende
+ * Sends eines Threads; gleichzeitige Sends mehrerer Threads sind ohnehin nicht zueinander geordnet.
+ * <p>
+ * Nicht für Transaktionen gedacht – die transaktionale Strecke nutzt eine eigene Factory.
+ */
+@Slf4j
+public class AdaptiveCompressionKafkaTemplate extends KafkaTemplate<String, MyKafkaMessage> {
+
+    private final ProducerFactory<String, MyKafkaMessage> baseFactory;
+    private final CompressionSelector selector;
+    private final Map<CompressionProfile, DefaultKafkaProducerFactory<String, MyKafkaMessage>> factories =
+            new ConcurrentHashMap<>();
+
+    // Topic → Factory, über die zuletzt gesendet wurde
+    private final Map<String, ProducerFactory<String, MyKafkaMessage>> active = new ConcurrentHashMap<>();
+
+    /**
+     * @param baseFactory die Basis-Factory, deren Konfiguration je Profil überschrieben wird
+     * @param selector    liefert das Profil je Topic
+     */
+    public AdaptiveCompressionKafkaTemplate(ProducerFactory<String, MyKafkaMessage> baseFactory,
+                                            CompressionSelector selector) {
+        super(baseFactory);
+        this.baseFactory = baseFactory;
+        this.selector = selector;
+    }
+
+    @Override
+    protected ProducerFactory<String, MyKafkaMessage> getProducerFactory(String topic) {
+        if (topic == null) {
+            return baseFactory;
+        }
+        CompressionProfile profile = selector.profileFor(topic);
+        ProducerFactory<String, MyKafkaMessage> target = profile != null ? factoryFor(profile) : baseFactory;
+        return active.get(topic) == target ? target : switchTo(topic, target);
+    }
+
+    /**
+     * Sendet die gepufferten Records aller Producer, nicht nur die der Basis-Factory.
+     */
+    @Override
+    public void flush() {
+        super.flush();
+        factories.values().forEach(AdaptiveCompressionKafkaTemplate::flush);
+    }
+
+    @Override
+    public void destroy() {
+        factories.values().forEach(DefaultKafkaProducerFactory::destroy);
+        factories.clear();
+        super.destroy();
+    }
+
+    private synchronized ProducerFactory<String, MyKafkaMessage> switchTo(String topic,
+                                                                       ProducerFactory<String, MyKafkaMessage> target) {
+        ProducerFactory<String, MyKafkaMessage> previous = active.get(topic);
+        if (previous != null && previous != target) {
+            // Wartende Batches des alten Producers zuerst senden, sonst überholt der neue Producer sie je Partition
+            flush(previous);
+            log.info("Topic {} wechselt den Producer", topic);
+        }
+        active.put(topic, target);
+        return target;
+    }
+
+    private DefaultKafkaProducerFactory<String, MyKafkaMessage> factoryFor(CompressionProfile profile) {
+        DefaultKafkaProducerFactory<String, MyKafkaMessage> factory = factories.get(profile);
+        return factory != null ? factory : factories.computeIfAbsent(profile, this::createFactory);
+    }
+
+    private static void flush(ProducerFactory<String, MyKafkaMessage> factory) {
+        // DefaultKafkaProducerFactory liefert den gemeinsamen Producer; close() gibt ihn nur zurück
+        Producer<String, MyKafkaMessage> producer = factory.createProducer();
+        try {
+            producer.flush();
+        } finally {
+            producer.close();
+        }
+    }
+
+    private DefaultKafkaProducerFactory<String, MyKafkaMessage> createFactory(CompressionProfile profile) {
+        Map<String, Object> configs = new HashMap<>(baseFactory.getConfigurationProperties());
+        configs.putAll(profile.toProducerConfig());
+        log.info("Neuer Producer für Profil {}", profile);
+        return new DefaultKafkaProducerFactory<>(configs);
+    }
+}
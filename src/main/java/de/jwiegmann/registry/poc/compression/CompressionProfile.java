@@ -0,0 +1,38 @@
+package de.jwiegmann.registry.poc.compression;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Kompressions- und Batching-Einstellungen eines Producers.
+ *
+ * @param compressionType {@code none}, {@code lz4}, {@code zstd}, {@code snappy} oder {@code gzip}
+ * @param batchSize       {@code batch.size} in Bytes
+ * @param linger          {@code linger.ms}
+ */
+public record CompressionProfile(String compressionType, int batchSize, Duration linger) {
+
+    public CompressionProfile {
+        compressionType = compressionType != null ? compressionType : "none";
+        linger = linger != null ? linger : Duration.ZERO;
+    }
+
+    /**
+     * Liefert die Producer-Konfiguration, mit der die Basis-Konfiguration überschrieben wird.
+     *
+     * @return {@code compression.type}, {@code batch.size} und {@code linger.ms}
+     */
+    public Map<String, Object> toProducerConfig() {
+        return Map.of(
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+                ProducerConfig.LINGER_MS_CONFIG, (int) linger.toMillis());
+    }
+
+    @Override
+    public String toString() {
+        return compressionType + "/batch.size=" + batchSize + "/linger.ms=" + linger.toMillis();
+    }
+}
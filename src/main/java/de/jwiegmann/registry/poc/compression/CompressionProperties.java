@@ -0,0 +1,65 @@
+package de.jwiegmann.registry.poc.compression;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Größenabhängige Wahl von Kompression und Batching je Topic ({@code kafka.compression.*}).
+ *
+ * @param adaptive    ob Topics nach ihrer beobachteten Payload-Größe einen eigenen Producer erhalten
+ * @param minSamples  Anzahl serialisierter Records im gleitenden Fenster, ab der für ein Topic entschieden wird;
+ *                    vorher gilt die Basis-Konfiguration des Producers, eine getroffene Wahl bleibt bestehen
+ * @param tiers       Größenstufen, aufsteigend nach {@link Tier#maxMedianBytes()}; die erste Stufe, deren Grenze
+ *                    der Median erreicht, wird verwendet
+ * @param topics      feste Profile je Topic, die die Auswahl übersteuern
+ * @param switchAfter Anzahl aufeinanderfolgender Auswertungen, in denen ein Topic eine andere Stufe erreichen muss,
+ *                    bevor sein Profil wechselt (Hysterese gegen Pendeln an einer Stufengrenze)
+ */
+@ConfigurationProperties(prefix = "kafka.compression")
+public record CompressionProperties(boolean adaptive, long minSamples, List<Tier> tiers,
+                                    Map<String, CompressionProfile> topics, int switchAfter) {
+
+    // Größte Nachricht, die der Producer standardmäßig annimmt (max.request.size)
+    static final int MAX_BATCH_SIZE = 1024 * 1024;
+
+    public CompressionProperties {
+        minSamples = minSamples > 0 ? minSamples : 1_000;
+        tiers = tiers != null && !tiers.isEmpty()
+                ? tiers.stream().sorted(Comparator.comparingLong(Tier::maxMedianBytes)).toList()
+                : defaultTiers();
+        topics = topics != null ? Map.copyOf(topics) : Map.of();
+        switchAfter = switchAfter > 0 ? switchAfter : 3;
+    }
+
+    /**
+     * Standard-Stufen: kleine Records profitieren vor allem von großen Batches mit schnellem LZ4, mittlere von
+     * zstd, große Records füllen einen Batch allein, Warten bringt dort nichts.
+     *
+     * @return die Standard-Stufen
+     */
+    static List<Tier> defaultTiers() {
+        return List.of(
+                new Tier(1024, "lz4", 64 * 1024, Duration.ofMillis(10)),
+                new Tier(64 * 1024, "zstd", 256 * 1024, Duration.ofMillis(10)),
+                new Tier(Long.MAX_VALUE, "zstd", MAX_BATCH_SIZE, Duration.ZERO));
+    }
+
+    /**
+     * Eine Größenstufe.
+     *
+     * @param maxMedianBytes  größter Median in Bytes, für den die Stufe gilt
+     * @param compressionType der Kompressions-Codec
+     * @param batchSize       {@code batch.size} in Bytes
+     * @param linger          {@code linger.ms}
+     */
+    public record Tier(long maxMedianBytes, String compressionType, int batchSize, Duration linger) {
+
+        CompressionProfile profile() {
+            return new CompressionProfile(compressionType, batchSize, linger);
+        }
+    }
+}
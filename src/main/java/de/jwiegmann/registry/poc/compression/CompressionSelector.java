@@ -0,0 +1,126 @@
+package de.jwiegmann.registry.poc.compression;
+
+import de.jwiegmann.registry.poc.control.dto.PayloadSizeStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wählt je Topic ein {@link CompressionProfile} anhand der in {@link PayloadSizeHistograms} beobachteten
+ * Payload-Größen.
+ * <p>
+ * Codec, {@code batch.size} und {@code linger.ms} kommen aus der Größenstufe des Medians, es gibt also genau ein
+ * Profil je Stufe. Die Auswahl wird periodisch neu berechnet ({@link #evaluate()}); die erste Entscheidung für ein
+ * Topic gilt sofort, ein späterer Wechsel erst, wenn dieselbe neue Stufe in
+ * {@link CompressionProperties#switchAfter()} aufeinanderfolgenden Auswertungen gewählt wurde. Der Hot-Path
+ * ({@link #profileFor}) liest nur eine Map.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CompressionSelector {
+
+    private final PayloadSizeHistograms histograms;
+    private final CompressionProperties properties;
+
+    private final Map<String, CompressionProfile> selected = new ConcurrentHashMap<>();
+
+    // Topic → Kandidat für einen Wechsel samt Anzahl aufeinanderfolgender Bestätigungen, nur in evaluate()
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    /**
+     * Prüft, ob die größenabhängige Auswahl aktiv ist.
+     *
+     * @return {@code true}, wenn {@code kafka.compression.adaptive=true}
+     */
+    public boolean isAdaptive() {
+        return properties.adaptive();
+    }
+
+    /**
+     * Gibt das Profil für ein Topic zurück.
+     *
+     * @param topic das Ziel-Topic
+     * @return das fest konfigurierte oder gewählte Profil, oder {@code null}, solange für das Topic noch zu
+     * wenige Records beobachtet wurden
+     */
+    public CompressionProfile profileFor(String topic) {
+        CompressionProfile fixed = properties.topics().get(topic);
+        return fixed != null ? fixed : selected.get(topic);
+    }
+
+    /**
+     * Gibt die aktuell gewählten Profile zurück (ohne fest konfigurierte).
+     *
+     * @return Topic → Profil
+     */
+    public Map<String, CompressionProfile> getSelections() {
+        return Map.copyOf(selected);
+    }
+
+    /**
+     * Berechnet die Auswahl für alle Topics mit ausreichend vielen Records neu.
+     */
+    @Scheduled(fixedDelayString = "${kafka.compression.evaluation-interval:PT30S}")
+    public synchronized void evaluate() {
+        if (!properties.adaptive()) {
+            return;
+        }
+        for (PayloadSizeStats stats : histograms.getSnapshot()) {
+            if (stats.count() < properties.minSamples() || properties.topics().containsKey(stats.topic())) {
+                continue;
+            }
+            String topic = stats.topic();
+            CompressionProfile candidate = select(stats);
+            CompressionProfile current = selected.get(topic);
+            if (candidate.equals(current)) {
+                pending.remove(topic);
+                continue;
+            }
+            if (current != null) {
+                Pending confirmed = pending.merge(topic, new Pending(candidate, 1), (previous, next) ->
+                        previous.profile().equals(candidate) ? new Pending(candidate, previous.count() + 1) : next);
+                if (confirmed.count() < properties.switchAfter()) {
+                    continue;
+                }
+            }
+            pending.remove(topic);
+            selected.put(topic, candidate);
+            log.info("Topic {}: Median {} B → {} (vorher {})", topic, stats.p50(), candidate, current);
+        }
+    }
+
+    /**
+     * Wählt das Profil für eine Größenverteilung anhand der konfigurierten Stufen, ohne es zu übernehmen.
+     *
+     * @param stats die beobachtete Verteilung
+     * @return das Profil
+     */
+    public CompressionProfile select(PayloadSizeStats stats) {
+        return select(stats, properties.tiers());
+    }
+
+    /**
+     * Wählt das Profil für eine Größenverteilung.
+     *
+     * @param stats die beobachtete Verteilung
+     * @param tiers die Größenstufen, aufsteigend sortiert
+     * @return das Profil
+     */
+    static CompressionProfile select(PayloadSizeStats stats, List<CompressionProperties.Tier> tiers) {
+        return tiers.stream()
+                .filter(t -> stats.p50() <= t.maxMedianBytes())
+                .findFirst()
+                .orElse(tiers.get(tiers.size() - 1))
+                .profile();
+    }
+
+    private record Pending(CompressionProfile profile, int count) {
+    }
+}
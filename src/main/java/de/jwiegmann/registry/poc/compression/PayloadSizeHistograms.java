@@ -0,0 +1,202 @@
+package de.jwiegmann.registry.poc.compression;
+
+import de.jwiegmann.registry.poc.control.dto.PayloadSizeStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Histogramme der serialisierten Payload-Größen je Topic auf Producer-Seite.
+ * <p>
+ * Jede Größe wird in einen Zweierpotenz-Bucket ({@code [2^(i-1), 2^i)}) einsortiert; der Hot-Path
+ * ({@link #record}) zählt nur gestreifte {@link LongAdder} hoch. Gezählt wird in einem gleitenden Fenster:
+ * {@link #rotate()} schiebt je {@code kafka.compression.evaluation-interval} das aktuelle Bucket-Set in das
+ * vorherige und beginnt ein leeres, die Statistik umfasst beide. Ältere Payloads fallen so nach spätestens zwei
+ * Intervallen heraus und eine veränderte Größenverteilung wird sichtbar.
+ * <p>
+ * Perzentile werden erst beim Abruf ({@link #stats}) aus den Buckets abgeschätzt – als obere Bucket-Grenze,
+ * also höchstens um den Faktor 2 zu groß. Die Micrometer-Gauges {@code kafka.producer.payload.size} (Tag
+ * {@code quantile}) und {@code kafka.producer.payload.count} lesen dieselben Buckets beim Scrape.
+ */
+@Component
+@RequiredArgsConstructor
+public class PayloadSizeHistograms {
+
+    // Bucket 0 für leere Payloads, Bucket 31 für alles ab 1 GiB
+    private static final int BUCKETS = 32;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Zählt eine serialisierte Payload.
+     *
+     * @param topic das Ziel-Topic
+     * @param bytes die Größe der serialisierten Payload in Bytes
+     */
+    public void record(String topic, int bytes) {
+        Histogram histogram = histograms.get(topic);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(topic, this::newHistogram);
+        }
+        Window window = histogram.current;
+        window.buckets[bucket(bytes)].increment();
+        window.max.accumulate(bytes);
+    }
+
+    /**
+     * Schätzt Anzahl und Perzentile der Payloads eines Topics im aktuellen Fenster ab.
+     *
+     * @param topic das Topic
+     * @return die Statistik, oder leer, wenn für das Topic noch nichts serialisiert wurde
+     */
+    public Optional<PayloadSizeStats> stats(String topic) {
+        Histogram histogram = histograms.get(topic);
+        return histogram == null ? Optional.empty() : Optional.of(histogram.stats(topic));
+    }
+
+    /**
+     * Gibt die Statistik aller Topics zurück.
+     *
+     * @return die Statistik je Topic, nach Topic sortiert
+     */
+    public List<PayloadSizeStats> getSnapshot() {
+        List<PayloadSizeStats> snapshot = new ArrayList<>();
+        histograms.forEach((topic, histogram) -> snapshot.add(histogram.stats(topic)));
+        snapshot.sort(Comparator.comparing(PayloadSizeStats::topic));
+        return snapshot;
+    }
+
+    /**
+     * Schiebt das Fenster aller Topics weiter: das aktuelle Bucket-Set wird zum vorherigen, das bisher vorherige
+     * wird verworfen. Ein {@link #record}, das gleichzeitig noch in das alte aktuelle Set zählt, landet damit im
+     * vorherigen und geht nicht verloren.
+     */
+    @Scheduled(fixedDelayString = "${kafka.compression.evaluation-interval:PT30S}")
+    public void rotate() {
+        histograms.values().forEach(Histogram::rotate);
+    }
+
+    /**
+     * Verwirft alle Histogramme und entfernt ihre Meter aus der {@link MeterRegistry}. Nützlich für
+     * Test-Isolation.
+     */
+    public void reset() {
+        histograms.values().forEach(histogram -> histogram.meters.forEach(meterRegistry::remove));
+        histograms.clear();
+    }
+
+    private Histogram newHistogram(String topic) {
+        Histogram histogram = new Histogram();
+        for (double quantile : new double[]{0.5, 0.95, 0.99}) {
+            histogram.meters.add(gauge("kafka.producer.payload.size", topic, histogram,
+                    h -> h.percentile(quantile), quantile));
+        }
+        histogram.meters.add(gauge("kafka.producer.payload.count", topic, histogram,
+                h -> h.counts()[BUCKETS], null));
+        return histogram;
+    }
+
+    private Meter gauge(String name, String topic, Histogram histogram, ToDoubleFunction<Histogram> value,
+                        Double quantile) {
+        Gauge.Builder<Histogram> builder = Gauge.builder(name, histogram, value)
+                .tag("topic", topic)
+                .strongReference(true);
+        if (quantile != null) {
+            builder.description("Serialisierte Payload-Größe je Topic im gleitenden Fenster (obere Bucket-Grenze)")
+                    .baseUnit("bytes")
+                    .tag("quantile", String.valueOf(quantile));
+        } else {
+            builder.description("Serialisierte Payloads je Topic im gleitenden Fenster");
+        }
+        return builder.register(meterRegistry);
+    }
+
+    static int bucket(int bytes) {
+        return Math.min(BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(Math.max(bytes, 0)));
+    }
+
+    static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+
+    private static final class Window {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Window() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+    }
+
+    private static final class Histogram {
+        private final List<Meter> meters = new ArrayList<>();
+        private volatile Window current = new Window();
+        private volatile Window previous = new Window();
+
+        private synchronized void rotate() {
+            previous = current;
+            current = new Window();
+        }
+
+        // Anzahl je Bucket über beide Fenster, an Index BUCKETS die Gesamtzahl
+        private long[] counts() {
+            Window current = this.current;
+            Window previous = this.previous;
+            long[] counts = new long[BUCKETS + 1];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = current.buckets[i].sum() + previous.buckets[i].sum();
+                counts[BUCKETS] += counts[i];
+            }
+            return counts;
+        }
+
+        private long max() {
+            return Math.max(current.max.get(), previous.max.get());
+        }
+
+        private long percentile(double quantile) {
+            long[] counts = counts();
+            return percentile(counts, counts[BUCKETS], quantile, max());
+        }
+
+        private PayloadSizeStats stats(String topic) {
+            long[] counts = counts();
+            long count = counts[BUCKETS];
+            long max = max();
+            return new PayloadSizeStats(topic, count,
+                    percentile(counts, count, 0.5, max),
+                    percentile(counts, count, 0.95, max),
+                    percentile(counts, count, 0.99, max),
+                    max);
+        }
+
+        private static long percentile(long[] counts, long count, double quantile, long max) {
+            long rank = (long) Math.ceil(count * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return 0;
+        }
+    }
+}
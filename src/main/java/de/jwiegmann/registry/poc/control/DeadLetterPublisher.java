@@ -0,0 +1,183 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.SchemaValidationErrorHandler;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Schreibt Records unverändert als Bytes – abgelehnte Records in das Dead-Letter-Topic
+ * ({@code <topic><kafka.dead-letter.topic-suffix>}) und wiederaufbereitete Records zurück in ihr Ursprungs-Topic.
+ * <p>
+ * Abgelehnte Records kommen als {@link ConsumerRecordRecoverer} vom {@code DefaultErrorHandler} des
+ * Listener-Containers und werden über einen {@link DeadLetterPublishingRecoverer} geschrieben: Original-Key,
+ * -Header und die Header {@link KafkaHeaders#DLT_ORIGINAL_TOPIC}, {@link KafkaHeaders#DLT_ORIGINAL_PARTITION},
+ * {@link KafkaHeaders#DLT_ORIGINAL_OFFSET}, {@link KafkaHeaders#DLT_ORIGINAL_TIMESTAMP} sowie die Exception-Header
+ * bleiben erhalten; zusätzlich werden die Verletzungs-Pointer in {@link #VIOLATIONS_HEADER} abgelegt.
+ */
+@Component
+public class DeadLetterPublisher implements ConsumerRecordRecoverer, DisposableBean {
+
+    /**
+     * Header mit den JSON-Pointern der Schema-Verletzungen, durch Kommas getrennt.
+     */
+    public static final String VIOLATIONS_HEADER = "dlt-violations";
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${kafka.dead-letter.enabled:false}")
+    private boolean enabled;
+
+    @Value("${kafka.dead-letter.topic-suffix:.DLT}")
+    private String topicSuffix;
+
+    private volatile DefaultKafkaProducerFactory<Object, byte[]> producerFactory;
+    private volatile KafkaTemplate<Object, byte[]> template;
+    private volatile DeadLetterPublishingRecoverer recoverer;
+
+    /**
+     * Ob abgelehnte Records in das Dead-Letter-Topic geschrieben werden.
+     *
+     * @return {@code true}, wenn {@code kafka.dead-letter.enabled} gesetzt ist
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Der Name des Dead-Letter-Topics zu einem Topic.
+     *
+     * @param topic das Ursprungs-Topic
+     * @return das Dead-Letter-Topic
+     */
+    public String deadLetterTopic(String topic) {
+        return topic + topicSuffix;
+    }
+
+    /**
+     * Das Ursprungs-Topic zu einem Dead-Letter-Topic, falls der Record keinen {@link KafkaHeaders#DLT_ORIGINAL_TOPIC}
+     * trägt.
+     *
+     * @param deadLetterTopic das Dead-Letter-Topic
+     * @return das Ursprungs-Topic
+     */
+    public String originalTopic(String deadLetterTopic) {
+        return deadLetterTopic.endsWith(topicSuffix)
+                ? deadLetterTopic.substring(0, deadLetterTopic.length() - topicSuffix.length())
+                : deadLetterTopic;
+    }
+
+    /**
+     * Schreibt einen Record, dessen Wert nicht deserialisiert oder validiert werden konnte, unverändert in das
+     * Dead-Letter-Topic, sofern aktiviert. Wartet auf die Bestätigung; schlägt das Senden fehl, wird die Exception
+     * weitergereicht, damit der Container den Offset nicht committet und den Record erneut zustellt.
+     *
+     * @param record    der Ursprungs-Record (Key, Partition, Offset, Zeitstempel und Header bleiben erhalten)
+     * @param exception die Ursache der Ablehnung
+     */
+    @Override
+    public void accept(ConsumerRecord<?, ?> record, Exception exception) {
+        if (!enabled || SchemaValidationErrorHandler.deserializationFailure(exception) == null) {
+            return;
+        }
+        recoverer().accept(record, exception);
+    }
+
+    /**
+     * Sendet einen rohen Record, z. B. beim Wiederaufbereiten aus dem Dead-Letter-Topic.
+     *
+     * @param record der Record
+     * @return das Ergebnis des Sendens
+     */
+    public CompletableFuture<SendResult<Object, byte[]>> send(ProducerRecord<Object, byte[]> record) {
+        return template().send(record);
+    }
+
+    /**
+     * Wartet, bis alle bisher gesendeten Records bestätigt sind.
+     */
+    public void flush() {
+        template().flush();
+    }
+
+    @Override
+    public void destroy() {
+        if (producerFactory != null) {
+            producerFactory.destroy();
+        }
+    }
+
+    private DeadLetterPublishingRecoverer recoverer() {
+        DeadLetterPublishingRecoverer current = recoverer;
+        if (current == null) {
+            synchronized (this) {
+                current = recoverer;
+                if (current == null) {
+                    // Partition -1: der Producer partitioniert nach dem Original-Key, die Reihenfolge je Key bleibt
+                    current = new DeadLetterPublishingRecoverer(template(),
+                            (record, exception) -> new TopicPartition(deadLetterTopic(record.topic()), -1));
+                    current.setHeadersFunction(DeadLetterPublisher::violationsHeader);
+                    recoverer = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private KafkaTemplate<Object, byte[]> template() {
+        KafkaTemplate<Object, byte[]> current = template;
+        if (current == null) {
+            synchronized (this) {
+                current = template;
+                if (current == null) {
+                    Map<String, Object> configProps = new HashMap<>();
+                    configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+                    configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+                    configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+                    producerFactory = new DefaultKafkaProducerFactory<>(configProps, DeadLetterPublisher::keyBytes,
+                            new ByteArraySerializer());
+                    current = new KafkaTemplate<>(producerFactory);
+                    template = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Headers violationsHeader(ConsumerRecord<?, ?> record, Exception exception) {
+        RecordHeaders headers = new RecordHeaders();
+        List<String> violations = SchemaValidationErrorHandler.violations(exception);
+        if (!violations.isEmpty()) {
+            headers.add(VIOLATIONS_HEADER, String.join(",", violations).getBytes(StandardCharsets.UTF_8));
+        }
+        return headers;
+    }
+
+    /**
+     * Keys kommen als String aus dem Listener-Container (wie vom {@code StringSerializer} des Producers geschrieben)
+     * oder als rohe Bytes aus dem Dead-Letter-Topic (Wiederaufbereitung).
+     */
+    private static byte[] keyBytes(String topic, Object key) {
+        return key instanceof String value ? value.getBytes(StandardCharsets.UTF_8) : (byte[]) key;
+    }
+}
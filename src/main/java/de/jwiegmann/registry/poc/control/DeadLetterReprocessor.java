@@ -0,0 +1,377 @@
+package de.jwiegmann.registry.poc.control;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.jwiegmann.registry.poc.SchemaValidationErrorHandler;
+import de.jwiegmann.registry.poc.control.dto.DeadLetterReprocessingRequest;
+import de.jwiegmann.registry.poc.control.dto.DeadLetterReprocessingSummary;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.util.DtoSchemaMetadata;
+import de.jwiegmann.registry.poc.validation.StreamingJsonSchemaValidator;
+import de.jwiegmann.registry.poc.validation.StreamingValidationException;
+import de.jwiegmann.registry.poc.validation.StreamingValidationLimits;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.everit.json.schema.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bereitet Records aus einem Dead-Letter-Topic nach einer Schema-Korrektur wieder auf.
+ * <p>
+ * Jede Partition wird von genau einem Leser der Reihe nach verarbeitet, damit Records mit demselben Key in ihrer
+ * ursprünglichen Reihenfolge zurückgeschrieben werden; parallel laufen nur verschiedene Partitionen. Alle Leser
+ * teilen sich einen einmal je Schema-ID kompilierten Validator: den {@link StreamingJsonSchemaValidator}, sonst die
+ * baumbasierte Validierung des {@link JsonSchema}. Gültige Records werden mit der Schema-ID der gewählten Version neu
+ * gerahmt und in Batches in ihr Ursprungs-Topic geschrieben; für die übrigen werden die Fehlergründe gezählt.
+ * <p>
+ * Nach jedem vollständig gesendeten Batch wird die Position je Partition in der Consumer-Gruppe
+ * {@code dead-letter-reprocessor.<DLQ>} committet; ein weiterer Lauf ohne expliziten Bereich setzt dort fort und
+ * schreibt nichts doppelt. Weiterhin ungültige Records werden deshalb unverändert (samt Headern) erneut an das Ende
+ * des DLQ gehängt – so liegen sie hinter der Position und werden beim nächsten Lauf wieder geprüft.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeadLetterReprocessor {
+
+    // Rückfallweg für Schemas, die der Streaming-Validator nicht kompiliert – mit denselben Limits
+    private static final ObjectMapper MAPPER = new ObjectMapper(StreamingValidationLimits.DEFAULTS.jsonFactory());
+    private static final int WIRE_HEADER_LENGTH = 5;
+    private static final byte MAGIC_BYTE = 0x0;
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final int MAX_EMPTY_POLLS = 10;
+    private static final int MAX_FAILURE_REASONS = 20;
+    private static final String GROUP_PREFIX = "dead-letter-reprocessor.";
+
+    private final SchemaRegistryClient schemaRegistryClient;
+    private final DeadLetterPublisher deadLetterPublisher;
+
+    // Schema-ID -> kompilierter Validator, von allen Lesern und Läufen geteilt
+    private final Map<Integer, PayloadValidator> validators = new ConcurrentHashMap<>();
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${kafka.dead-letter.reprocess.parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${kafka.dead-letter.reprocess.batch-size:500}")
+    private int defaultBatchSize;
+
+    /**
+     * Liest den Offset-Bereich, validiert erneut und schreibt gültige Records zurück.
+     *
+     * @param request Topic, Schema-Version, Bereich und Parallelität
+     * @return die Zusammenfassung inklusive verbleibender Fehlergründe
+     */
+    public DeadLetterReprocessingSummary reprocess(DeadLetterReprocessingRequest request) {
+        long start = System.nanoTime();
+        String subject = request.subject() != null ? request.subject() : DtoSchemaMetadata.subjectOf(MyKafkaMessage.class);
+        int parallelism = positiveOr(request.parallelism(), defaultParallelism);
+        int batchSize = positiveOr(request.batchSize(), defaultBatchSize);
+
+        SchemaMetadata metadata = schemaMetadata(subject, request.version());
+        PayloadValidator validator = validators.computeIfAbsent(metadata.getId(), id -> compile(metadata));
+        byte[] idBytes = idBytes(metadata.getId());
+
+        List<Range> ranges = ranges(request);
+        Result total = new Result();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, ranges.size())));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Range range : ranges) {
+                futures.add(executor.submit(() -> process(range, request, validator, idBytes, batchSize)));
+            }
+            for (Future<Result> future : futures) {
+                total.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Wiederaufbereitung von " + request.deadLetterTopic() + " unterbrochen", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Wiederaufbereitung von " + request.deadLetterTopic() + " fehlgeschlagen",
+                    e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        DeadLetterReprocessingSummary summary = new DeadLetterReprocessingSummary(request.deadLetterTopic(), subject,
+                metadata.getVersion(), metadata.getId(), total.read, total.republished, total.failed,
+                topReasons(total.reasons), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        log.info("Wiederaufbereitung {}: {} gelesen, {} zurückgeschrieben, {} weiterhin fehlerhaft",
+                summary.deadLetterTopic(), summary.read(), summary.republished(), summary.stillFailing());
+        return summary;
+    }
+
+    private Result process(Range range, DeadLetterReprocessingRequest request, PayloadValidator validator,
+                           byte[] idBytes, int batchSize) {
+        Result result = new Result();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try (KafkaConsumer<byte[], byte[]> consumer = newConsumer(request.deadLetterTopic())) {
+            consumer.assign(List.of(range.partition));
+            consumer.seek(range.partition, range.from);
+
+            int emptyPolls = 0;
+            while (consumer.position(range.partition) < range.to && emptyPolls < MAX_EMPTY_POLLS) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT);
+                emptyPolls = records.isEmpty() ? emptyPolls + 1 : 0;
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    if (record.offset() >= range.to) {
+                        break;
+                    }
+                    result.read++;
+                    ProducerRecord<Object, byte[]> republished = revalidate(record, request, validator, idBytes, result);
+                    if (republished != null) {
+                        batch.add(new Pending(republished, record.offset(), true));
+                    } else {
+                        // Weiterhin ungültig: ans DLQ-Ende hinter die Position, damit der nächste Lauf ihn prüft
+                        batch.add(new Pending(new ProducerRecord<>(record.topic(), null, record.key(), record.value(),
+                                record.headers()), record.offset(), false));
+                    }
+                    if (batch.size() >= batchSize && !send(consumer, range.partition, batch, result)) {
+                        return result;
+                    }
+                }
+            }
+            if (emptyPolls >= MAX_EMPTY_POLLS) {
+                log.warn("{} ab Offset {} nicht vollständig lesbar, Bereich endet bei {}",
+                        range.partition, consumer.position(range.partition), range.to);
+            }
+            send(consumer, range.partition, batch, result);
+        }
+        return result;
+    }
+
+    private ProducerRecord<Object, byte[]> revalidate(ConsumerRecord<byte[], byte[]> record,
+                                                      DeadLetterReprocessingRequest request,
+                                                      PayloadValidator validator, byte[] idBytes, Result result) {
+        byte[] data = record.value();
+        if (data == null) {
+            result.fail("kein Payload");
+            return null;
+        }
+        int offset = data.length >= WIRE_HEADER_LENGTH && data[0] == MAGIC_BYTE ? WIRE_HEADER_LENGTH : 0;
+        try {
+            validator.validate(data, offset, data.length - offset);
+        } catch (StreamingValidationException e) {
+            result.fail(e.getPointerToViolation() + " (" + e.getKeyword() + ")");
+            return null;
+        } catch (ValidationException e) {
+            result.fail(String.join(", ", SchemaValidationErrorHandler.violationPointers(e)));
+            return null;
+        } catch (Exception e) {
+            result.fail(e.getClass().getSimpleName());
+            return null;
+        }
+
+        // Neu rahmen: Der Consumer validiert gegen die Schema-ID im Wire-Format, nicht gegen die alte
+        byte[] value = new byte[WIRE_HEADER_LENGTH + data.length - offset];
+        value[0] = MAGIC_BYTE;
+        System.arraycopy(idBytes, 0, value, 1, idBytes.length);
+        System.arraycopy(data, offset, value, WIRE_HEADER_LENGTH, data.length - offset);
+
+        RecordHeaders headers = new RecordHeaders();
+        String originalTopic = null;
+        for (Header header : record.headers()) {
+            if (KafkaHeaders.DLT_ORIGINAL_TOPIC.equals(header.key())) {
+                originalTopic = new String(header.value(), StandardCharsets.UTF_8);
+            } else if (!header.key().startsWith("kafka_dlt") && !DeadLetterPublisher.VIOLATIONS_HEADER.equals(header.key())) {
+                headers.add(header);
+            }
+        }
+        String targetTopic = request.targetTopic() != null ? request.targetTopic()
+                : originalTopic != null ? originalTopic
+                : deadLetterPublisher.originalTopic(record.topic());
+        return new ProducerRecord<>(targetTopic, null, record.key(), value, headers);
+    }
+
+    /**
+     * Sendet den Batch und committet danach die Position hinter dem letzten vollständig gesendeten Record.
+     *
+     * @return {@code false}, wenn ein Record nicht gesendet werden konnte; die Partition wird dann nicht weiter
+     * gelesen, und der nächste Lauf beginnt bei diesem Record
+     */
+    private boolean send(KafkaConsumer<byte[], byte[]> consumer, TopicPartition partition, List<Pending> batch,
+                         Result result) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        List<CompletableFuture<SendResult<Object, byte[]>>> futures = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            futures.add(deadLetterPublisher.send(pending.record));
+        }
+        deadLetterPublisher.flush();
+
+        long next = -1;
+        boolean complete = true;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            try {
+                futures.get(i).join();
+                if (pending.republish) {
+                    result.republished++;
+                }
+                if (complete) {
+                    next = pending.sourceOffset + 1;
+                }
+            } catch (RuntimeException e) {
+                if (pending.republish) {
+                    result.fail("Senden fehlgeschlagen: " + e.getCause().getClass().getSimpleName());
+                }
+                complete = false;
+            }
+        }
+        if (next >= 0) {
+            consumer.commitSync(Map.of(partition, new OffsetAndMetadata(next)));
+        }
+        batch.clear();
+        return complete;
+    }
+
+    private List<Range> ranges(DeadLetterReprocessingRequest request) {
+        if (request.partition() == null && (request.fromOffset() != null || request.toOffset() != null)) {
+            throw new IllegalArgumentException("fromOffset/toOffset gelten für eine Partition – partition angeben");
+        }
+        List<Range> ranges = new ArrayList<>();
+        try (KafkaConsumer<byte[], byte[]> consumer = newConsumer(request.deadLetterTopic())) {
+            List<TopicPartition> partitions = consumer.partitionsFor(request.deadLetterTopic()).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .filter(partition -> request.partition() == null || partition.partition() == request.partition())
+                    .toList();
+            Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.copyOf(partitions));
+            for (TopicPartition partition : partitions) {
+                // Ein expliziter Bereich hat Vorrang vor der gespeicherten Position
+                OffsetAndMetadata position = committed.get(partition);
+                long start = request.fromOffset() != null ? request.fromOffset()
+                        : position != null ? position.offset() : 0;
+                long from = Math.max(beginning.get(partition), start);
+                long to = Math.min(end.get(partition), request.toOffset() != null ? request.toOffset() : Long.MAX_VALUE);
+                if (from < to) {
+                    ranges.add(new Range(partition, from, to));
+                }
+            }
+        }
+        return ranges;
+    }
+
+    private SchemaMetadata schemaMetadata(String subject, Integer version) {
+        try {
+            return version != null
+                    ? schemaRegistryClient.getSchemaMetadata(subject, version)
+                    : schemaRegistryClient.getLatestSchemaMetadata(subject);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Schema für Subject " + subject + " Version "
+                    + (version != null ? version : "latest") + " nicht gefunden", e);
+        }
+    }
+
+    private static PayloadValidator compile(SchemaMetadata metadata) {
+        if (!"JSON".equals(metadata.getSchemaType())) {
+            throw new IllegalArgumentException("Nur JSON Schema wird unterstützt, nicht " + metadata.getSchemaType());
+        }
+        JsonSchema schema = new JsonSchema(metadata.getSchema());
+        return StreamingJsonSchemaValidator.compile(schema.toJsonNode(), StreamingValidationLimits.DEFAULTS)
+                .<PayloadValidator>map(streaming -> streaming::validate)
+                .orElseGet(() -> (data, offset, length) -> schema.validate(MAPPER.readTree(data, offset, length)));
+    }
+
+    private KafkaConsumer<byte[], byte[]> newConsumer(String deadLetterTopic) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // Nur für die committete Position; die Partitionen werden per assign() zugewiesen
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP_PREFIX + deadLetterTopic);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        return new KafkaConsumer<>(props, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    }
+
+    private static Map<String, Long> topReasons(Map<String, Long> reasons) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        reasons.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(MAX_FAILURE_REASONS)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    private static byte[] idBytes(int schemaId) {
+        return new byte[]{(byte) (schemaId >>> 24), (byte) (schemaId >>> 16), (byte) (schemaId >>> 8), (byte) schemaId};
+    }
+
+    private static int positiveOr(Integer value, int defaultValue) {
+        return value != null && value > 0 ? value : defaultValue;
+    }
+
+    /**
+     * Validiert einen Payload-Ausschnitt; Implementierungen müssen threadsicher sein.
+     */
+    @FunctionalInterface
+    private interface PayloadValidator {
+        void validate(byte[] data, int offset, int length) throws Exception;
+    }
+
+    private record Range(TopicPartition partition, long from, long to) {
+    }
+
+    /**
+     * Ein zu sendender Record und der DLQ-Offset, aus dem er stammt.
+     *
+     * @param republish {@code true} für das Zurückschreiben, {@code false} für das erneute Anhängen an den DLQ
+     */
+    private record Pending(ProducerRecord<Object, byte[]> record, long sourceOffset, boolean republish) {
+    }
+
+    /**
+     * Zähler eines Lesers; wird nur von einem Thread beschrieben und am Ende zusammengeführt.
+     */
+    private static final class Result {
+        private long read;
+        private long republished;
+        private long failed;
+        private final Map<String, Long> reasons = new HashMap<>();
+
+        private void fail(String reason) {
+            failed++;
+            reasons.merge(reason, 1L, Long::sum);
+        }
+
+        private void merge(Result other) {
+            read += other.read;
+            republished += other.republished;
+            failed += other.failed;
+            other.reasons.forEach((reason, count) -> reasons.merge(reason, count, Long::sum));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package de.jwiegmann.registry.poc.control;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Konfiguration der transaktionalen Consume-Transform-Produce-Strecke ({@code kafka.exactly-once.*}).
+ *
+ * @param enabled               ob die Strecke gestartet wird
+ * @param inputTopic            Topic, aus dem gelesen wird
+ * @param outputTopic           Topic, in das die transformierten Nachrichten geschrieben werden
+ * @param group                 Consumer-Gruppe, deren Offsets in der Transaktion committet werden
+ * @param transactionalIdPrefix Präfix der {@code transactional.id}; muss je Instanz eindeutig sein
+ * @param batchMaxRecords       maximale Anzahl gelesener Records je Transaktion
+ * @param batchMaxInterval      maximale Zeit, die eine offene Transaktion auf weitere Records wartet
+ */
+@ConfigurationProperties(prefix = "kafka.exactly-once")
+public record ExactlyOnceProperties(boolean enabled,
+                                    String inputTopic,
+                                    String outputTopic,
+                                    String group,
+                                    String transactionalIdPrefix,
+                                    int batchMaxRecords,
+                                    Duration batchMaxInterval) {
+
+    public ExactlyOnceProperties {
+        if (batchMaxRecords <= 0) {
+            batchMaxRecords = 500;
+        }
+        if (batchMaxInterval == null || batchMaxInterval.isNegative() || batchMaxInterval.isZero()) {
+            batchMaxInterval = Duration.ofMillis(100);
+        }
+        if (transactionalIdPrefix == null || transactionalIdPrefix.isBlank()) {
+            transactionalIdPrefix = "my-kafka-message-tx-";
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Exactly-once Consume-Transform-Produce: Liest {@link MyKafkaMessage}s, transformiert sie und schreibt sie
+ * zusammen mit den Consumer-Offsets in einer Kafka-Transaktion in das Ziel-Topic.
+ * <p>
+ * Mehrere Records werden in einer Transaktion gebündelt, bis {@link ExactlyOnceProperties#batchMaxRecords()}
+ * erreicht oder {@link ExactlyOnceProperties#batchMaxInterval()} seit dem ersten Record vergangen ist. So verteilt
+ * sich der Aufwand für Commit-Marker und Offset-Commit auf viele Records. Gelesen wird mit
+ * {@code isolation.level=read_committed} und ohne Auto-Commit; schlägt eine Transaktion fehl, wird sie abgebrochen
+ * und der Consumer auf den Anfang des Batches zurückgesetzt.
+ * <p>
+ * Records, deren Validierung fehlgeschlagen ist (Wert {@code null} durch den {@code ErrorHandlingDeserializer}),
+ * werden nicht weitergeschrieben, ihre Offsets aber mit committet. Sie werden mit Topic, Partition und Offset
+ * geloggt und in {@link #getSkippedRecords()} gezählt.
+ * <p>
+ * Bricht eine Transaktion ab, wird der Rest des aktuellen Polls verworfen: Die verworfenen Records stehen hinter
+ * dem zurückgesetzten Offset und werden mit dem nächsten Poll in der ursprünglichen Reihenfolge erneut gelesen.
+ * Würden sie stattdessen in einem neuen Batch committet, läge der committete Offset hinter dem abgebrochenen
+ * Bereich, und der erneute Lauf schriebe sie ein zweites Mal.
+ */
+@Slf4j
+public class ExactlyOnceRepublisher implements SmartLifecycle {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ConsumerFactory<String, MyKafkaMessage> consumerFactory;
+    private final KafkaTemplate<String, MyKafkaMessage> transactionalTemplate;
+    private final ExactlyOnceProperties properties;
+    private final UnaryOperator<MyKafkaMessage> transformer;
+
+    private final AtomicLong committedRecords = new AtomicLong();
+    private final AtomicLong committedTransactions = new AtomicLong();
+    private final AtomicLong abortedTransactions = new AtomicLong();
+    private final AtomicLong skippedRecords = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Consumer<String, MyKafkaMessage> consumer;
+    private Thread worker;
+
+    /**
+     * @param consumerFactory die Consumer-Factory (Deserializer und Validierung wie im Listener)
+     * @param producerFactory die Producer-Factory, aus der eine transaktionale Kopie abgeleitet wird
+     * @param properties      Topics, Gruppe und Batch-Grenzen
+     * @param transformer     die Transformation je Nachricht
+     */
+    public ExactlyOnceRepublisher(ConsumerFactory<String, MyKafkaMessage> consumerFactory,
+                                  ProducerFactory<String, MyKafkaMessage> producerFactory,
+                                  ExactlyOnceProperties properties,
+                                  UnaryOperator<MyKafkaMessage> transformer) {
+        this(consumerFactory, transactionalTemplate(producerFactory, properties), properties, transformer);
+    }
+
+    ExactlyOnceRepublisher(ConsumerFactory<String, MyKafkaMessage> consumerFactory,
+                           KafkaTemplate<String, MyKafkaMessage> transactionalTemplate,
+                           ExactlyOnceProperties properties,
+                           UnaryOperator<MyKafkaMessage> transformer) {
+        this.consumerFactory = consumerFactory;
+        this.transactionalTemplate = transactionalTemplate;
+        this.properties = properties;
+        this.transformer = transformer;
+    }
+
+    private static KafkaTemplate<String, MyKafkaMessage> transactionalTemplate(
+            ProducerFactory<String, MyKafkaMessage> producerFactory, ExactlyOnceProperties properties) {
+        DefaultKafkaProducerFactory<String, MyKafkaMessage> transactional =
+                new DefaultKafkaProducerFactory<>(new HashMap<>(producerFactory.getConfigurationProperties()));
+        transactional.setTransactionIdPrefix(properties.transactionalIdPrefix());
+        return new KafkaTemplate<>(transactional);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "exactly-once-" + properties.group());
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        Consumer<String, MyKafkaMessage> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (worker != null) {
+            try {
+                worker.join(SHUTDOWN_TIMEOUT.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+        transactionalTemplate.getProducerFactory().reset();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Anzahl der gelesenen Records (inkl. verworfener ungültiger), deren Offsets erfolgreich committet wurden.
+     *
+     * @return die Anzahl der Records
+     */
+    public long getCommittedRecords() {
+        return committedRecords.get();
+    }
+
+    /**
+     * @return die Anzahl der erfolgreich committeten Transaktionen
+     */
+    public long getCommittedTransactions() {
+        return committedTransactions.get();
+    }
+
+    /**
+     * @return die Anzahl der abgebrochenen Transaktionen
+     */
+    public long getAbortedTransactions() {
+        return abortedTransactions.get();
+    }
+
+    /**
+     * Anzahl der committeten Records, die wegen fehlgeschlagener Validierung nicht weitergeschrieben wurden.
+     *
+     * @return die Anzahl der übersprungenen Records
+     */
+    public long getSkippedRecords() {
+        return skippedRecords.get();
+    }
+
+    private void run() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, properties.batchMaxRecords());
+
+        Batch batch = new Batch();
+        try (Consumer<String, MyKafkaMessage> c =
+                     consumerFactory.createConsumer(properties.group(), null, "-exactly-once", overrides)) {
+            this.consumer = c;
+            c.subscribe(List.of(properties.inputTopic()), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    // Offener Batch gehört noch uns – committen, bevor ein anderer Consumer die Partitionen übernimmt
+                    commit(c, batch, partitions);
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                }
+            });
+
+            long maxIntervalNanos = properties.batchMaxInterval().toNanos();
+            while (running) {
+                long timeout = batch.isEmpty() ? maxIntervalNanos : Math.max(0, batch.deadline - System.nanoTime());
+                ConsumerRecords<String, MyKafkaMessage> records = c.poll(Duration.ofNanos(timeout));
+                for (ConsumerRecord<String, MyKafkaMessage> record : records) {
+                    if (batch.isEmpty()) {
+                        batch.deadline = System.nanoTime() + maxIntervalNanos;
+                    }
+                    batch.add(record, properties.outputTopic(), transformer);
+                    if (batch.size >= properties.batchMaxRecords() && !commit(c, batch)) {
+                        // Rest des Polls liegt hinter dem zurückgesetzten Offset und kommt mit dem nächsten Poll
+                        break;
+                    }
+                }
+                if (!batch.isEmpty() && System.nanoTime() - batch.deadline >= 0) {
+                    commit(c, batch);
+                }
+            }
+            commit(c, batch);
+        } catch (WakeupException e) {
+            // Shutdown – der offene Batch wird nicht committet und beim nächsten Start erneut gelesen
+        } catch (RuntimeException e) {
+            log.error("Exactly-once-Strecke {} → {} abgebrochen", properties.inputTopic(), properties.outputTopic(), e);
+            running = false;
+        } finally {
+            this.consumer = null;
+        }
+    }
+
+    private boolean commit(Consumer<String, MyKafkaMessage> c, Batch batch) {
+        return commit(c, batch, Set.of());
+    }
+
+    /**
+     * Committet den Batch transaktional. Bricht die Transaktion ab, wird der Consumer auf den Batch-Anfang
+     * zurückgesetzt – außer für entzogene Partitionen: deren Offsets liest der neue Besitzer ohnehin ab dem
+     * letzten Commit, und ein {@code seek} auf eine nicht mehr zugewiesene Partition schlägt fehl.
+     *
+     * @param revoked die gerade entzogenen Partitionen, leer außerhalb eines Rebalancings
+     * @return {@code false}, wenn die Transaktion abgebrochen und der Consumer zurückgesetzt wurde
+     */
+    private boolean commit(Consumer<String, MyKafkaMessage> c, Batch batch, Collection<TopicPartition> revoked) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            transactionalTemplate.executeInTransaction(ops -> {
+                for (ProducerRecord<String, MyKafkaMessage> record : batch.output) {
+                    ops.send(record);
+                }
+                ops.sendOffsetsToTransaction(batch.nextOffsets(), c.groupMetadata());
+                return null;
+            });
+            committedRecords.addAndGet(batch.size);
+            committedTransactions.incrementAndGet();
+            batch.skipped.forEach(skipped -> log.warn("Ungültiger Record {} übersprungen, Offset committet", skipped));
+            skippedRecords.addAndGet(batch.skipped.size());
+            return true;
+        } catch (KafkaException e) {
+            // Transaktion wurde abgebrochen: Ausgabe ist für read_committed-Leser unsichtbar, Batch erneut lesen
+            abortedTransactions.incrementAndGet();
+            log.warn("Transaktion mit {} Records abgebrochen, setze Consumer zurück", batch.size, e);
+            Set<TopicPartition> assigned = c.assignment();
+            batch.firstOffsets.forEach((partition, offset) -> {
+                if (assigned.contains(partition) && !revoked.contains(partition)) {
+                    c.seek(partition, offset);
+                }
+            });
+            return false;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Die Records und Offsets der laufenden Transaktion.
+     */
+    private static final class Batch {
+        private final List<ProducerRecord<String, MyKafkaMessage>> output = new ArrayList<>();
+        private final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        private final Map<TopicPartition, Long> lastOffsets = new HashMap<>();
+        // "topic-partition@offset" der Records ohne Wert
+        private final List<String> skipped = new ArrayList<>();
+        private int size;
+        private long deadline;
+
+        private void add(ConsumerRecord<String, MyKafkaMessage> record, String outputTopic,
+                         UnaryOperator<MyKafkaMessage> transformer) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            firstOffsets.putIfAbsent(partition, record.offset());
+            lastOffsets.put(partition, record.offset());
+            size++;
+            if (record.value() != null) {
+                output.add(new ProducerRecord<>(outputTopic, record.key(), transformer.apply(record.value())));
+            } else {
+                skipped.add(partition + "@" + record.offset());
+            }
+        }
+
+        private Map<TopicPartition, OffsetAndMetadata> nextOffsets() {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            lastOffsets.forEach((partition, offset) -> offsets.put(partition, new OffsetAndMetadata(offset + 1)));
+            return offsets;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void clear() {
+            output.clear();
+            firstOffsets.clear();
+            lastOffsets.clear();
+            skipped.clear();
+            size = 0;
+        }
+    }
+}
@@ -1,20 +1,49 @@
 package de.jwiegmann.registry.poc.control;
 
 import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.store.MessageLog;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 @Service
 @Slf4j
-public class KafkaConsumerService {
+@RequiredArgsConstructor
+public class KafkaConsumerService implements InitializingBean {
+
+    // Optionales lokales Append-Log, damit validierte Nachrichten einen Neustart überstehen
+    private final MessageLog messageLog;
 
     // Speichert die erfolgreich empfangenen & validierten Nachrichten
     private final List<MyKafkaMessage> validMessages = new CopyOnWriteArrayList<>();
 
+    // Zeit vom JVM-Start bis zum ersten konsumierten Record (Kaltstart-Messung)
+    private volatile Duration timeToFirstRecord;
+
+    /**
+     * Spielt die jüngsten im Message-Log gespeicherten Nachrichten ein, bevor die Listener-Container starten.
+     * Ältere Nachrichten bleiben nur über das {@link MessageLog} lesbar.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (messageLog.isReplayOnStartup()) {
+            // Gesammelt und einmal übernommen – jedes add auf der CopyOnWriteArrayList kopiert das ganze Array
+            List<MyKafkaMessage> replayed = new ArrayList<>();
+            messageLog.replay(replayed::add);
+            validMessages.addAll(replayed);
+            log.info("{} Nachrichten aus dem Message-Log eingespielt", replayed.size());
+        }
+    }
+
     /**
      * Kafka Listener, der Nachrichten konsumiert und automatisch gegen das JSON-Schema validiert.
      * Das Schema wird aus der Schema-Registry geladen, und die Validierung übernimmt der Deserializer.
@@ -23,8 +52,29 @@ public class KafkaConsumerService {
      */
     @KafkaListener(topics = "${kafka.topic}", groupId = "${kafka.group}")
     public void consume(final MyKafkaMessage message) {
+        if (timeToFirstRecord == null) {
+            recordFirstMessage();
+        }
         log.info("Empfangene & gültige Nachricht: {}", message);
         validMessages.add(message);
+        messageLog.append(message);
+    }
+
+    private synchronized void recordFirstMessage() {
+        if (timeToFirstRecord == null) {
+            long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+            timeToFirstRecord = Duration.ofMillis(System.currentTimeMillis() - jvmStart);
+            log.info("Erster Record {} ms nach JVM-Start konsumiert", timeToFirstRecord.toMillis());
+        }
+    }
+
+    /**
+     * Gibt die Zeit vom JVM-Start bis zum ersten konsumierten Record zurück.
+     *
+     * @return die Dauer, oder leer, solange noch kein Record konsumiert wurde
+     */
+    public Optional<Duration> getTimeToFirstRecord() {
+        return Optional.ofNullable(timeToFirstRecord);
     }
 
     /**
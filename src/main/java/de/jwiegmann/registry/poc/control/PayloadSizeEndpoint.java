@@ -0,0 +1,26 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.compression.PayloadSizeHistograms;
+import de.jwiegmann.registry.poc.control.dto.PayloadSizeStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator-Endpoint {@code /actuator/payloadsizes} mit der Verteilung der serialisierten Payload-Größen je Topic.
+ */
+@Component
+@Endpoint(id = "payloadsizes")
+@RequiredArgsConstructor
+public class PayloadSizeEndpoint {
+
+    private final PayloadSizeHistograms histograms;
+
+    @ReadOperation
+    public List<PayloadSizeStats> payloadSizes() {
+        return histograms.getSnapshot();
+    }
+}
@@ -0,0 +1,59 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.util.DtoSchemaMetadata;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Füllt im startoptimierten Modus ({@code schema.startup.optimized=true}) den gemeinsamen
+ * {@link SchemaRegistryClient}, bevor der erste Record eintrifft.
+ * <p>
+ * Die Subjects stammen aus den Build-Zeit-{@link DtoSchemaMetadata}; je Subject werden die neueste Version und das
+ * Schema zur ID geladen und das Schema einmal geparst. Läuft asynchron, damit der Start nicht auf die Registry
+ * wartet – ist sie nicht erreichbar, laden Serializer und Deserializer wie bisher beim ersten Record nach.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaRegistryWarmup {
+
+    private static final List<Class<?>> DTO_TYPES = List.of(MyKafkaMessage.class);
+
+    private final SchemaRegistryClient schemaRegistryClient;
+
+    @Value("${schema.startup.optimized:false}")
+    private boolean startupOptimized;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmUp() {
+        if (!startupOptimized) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> DTO_TYPES.forEach(this::warmUp));
+    }
+
+    private void warmUp(Class<?> type) {
+        String subject = DtoSchemaMetadata.subjectOf(type);
+        try {
+            SchemaMetadata latest = schemaRegistryClient.getLatestSchemaMetadata(subject);
+            ParsedSchema schema = schemaRegistryClient.getSchemaById(latest.getId());
+            // Parst das Schema einmalig (z. B. den everit-Validator bei JSON Schema); wird im Client gecacht
+            schema.rawSchema();
+            log.info("Registry-Cache für Subject {} vorgewärmt (Version {}, ID {})",
+                    subject, latest.getVersion(), latest.getId());
+        } catch (Exception e) {
+            log.warn("Vorwärmen des Registry-Caches für Subject {} fehlgeschlagen", subject, e);
+        }
+    }
+}
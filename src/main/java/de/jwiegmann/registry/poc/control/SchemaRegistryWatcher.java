@@ -0,0 +1,307 @@
+package de.jwiegmann.registry.poc.control;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.jwiegmann.registry.poc.control.dto.SchemaChangedEvent;
+import de.jwiegmann.registry.poc.util.SubjectScopedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Liest das interne {@code _schemas}-Topic der Schema Registry mit und meldet neue oder gelöschte Subject-Versionen,
+ * sobald sie registriert werden ({@code schema.registry.watch.enabled=true}).
+ * <p>
+ * Je Poll mit Änderungen wird im gemeinsamen {@link SubjectScopedSchemaRegistryClient} nur die neueste Version der
+ * geänderten Subjects neu geladen; die ID-Caches bleiben unberührt. Anschließend werden die registrierten Listener
+ * (von Kafka instanziierte SerDes, z. B. der {@code MyKafkaMessageSerializer}) benachrichtigt und ein
+ * {@link SchemaChangedEvent} als Spring-Event veröffentlicht – auf einem eigenen Thread in Reihenfolge der
+ * Änderungen, damit langsame Listener (z. B. der REST-Download des {@code SchemaDownloader}) das Mitlesen nicht
+ * aufhalten. Damit entfallen periodische {@code versions/latest}-Abfragen.
+ * <p>
+ * Gelesen wird ohne Consumer-Gruppe. Beim ersten Start ab dem Start der JVM, damit Registrierungen zwischen dem
+ * ersten Laden der Caches und dem Start des Watchers nicht verloren gehen; nach einem Fehler ab der zuletzt
+ * verarbeiteten Position.
+ */
+@Slf4j
+@Component
+public class SchemaRegistryWatcher implements SmartLifecycle {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(5);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SchemaRegistryClient schemaRegistryClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<Consumer<SchemaChangedEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    // Position hinter der zuletzt verarbeiteten Änderung je Partition, nur im Watcher-Thread
+    private final Map<TopicPartition, Long> positions = new HashMap<>();
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${schema.registry.watch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${schema.registry.watch.topic:_schemas}")
+    private String topic;
+
+    private volatile boolean running;
+    private volatile KafkaConsumer<byte[], byte[]> consumer;
+    private Thread worker;
+    private ExecutorService notifier;
+
+    public SchemaRegistryWatcher(SchemaRegistryClient schemaRegistryClient, ApplicationEventPublisher eventPublisher) {
+        this.schemaRegistryClient = schemaRegistryClient;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Ob der Watcher konfiguriert ist. Ohne Watcher laden die SerDes neue Versionen nur beim ersten Zugriff.
+     *
+     * @return {@code true}, wenn {@code schema.registry.watch.enabled} gesetzt ist
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registriert einen Listener für Schema-Änderungen. Gedacht für SerDes, die Kafka instanziiert und die daher
+     * keine Spring-Events empfangen.
+     *
+     * @param listener der Listener, wird auf dem Benachrichtigungs-Thread des Watchers aufgerufen
+     */
+    public void addListener(Consumer<SchemaChangedEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Entfernt einen zuvor registrierten Listener.
+     *
+     * @param listener der Listener
+     */
+    public void removeListener(Consumer<SchemaChangedEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        notifier = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schema-registry-watcher-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker = new Thread(this::run, "schema-registry-watcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        KafkaConsumer<byte[], byte[]> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (worker != null) {
+            try {
+                worker.join(RETRY_BACKOFF.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+        if (notifier != null) {
+            notifier.shutdown();
+            notifier = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                watch();
+            } catch (WakeupException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Der nächste Versuch liest ab der zuletzt verarbeiteten Position weiter
+                log.warn("Lesen von {} fehlgeschlagen, neuer Versuch in {}", topic, RETRY_BACKOFF, e);
+                sleep(RETRY_BACKOFF);
+            }
+        }
+    }
+
+    private void watch() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, "schema-registry-watcher");
+
+        try (KafkaConsumer<byte[], byte[]> c =
+                     new KafkaConsumer<>(props, new ByteArrayDeserializer(), new ByteArrayDeserializer())) {
+            this.consumer = c;
+            List<TopicPartition> partitions = c.partitionsFor(topic).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            c.assign(partitions);
+            seek(c, partitions);
+            log.info("Beobachte {} auf neue Schema-Versionen", topic);
+
+            while (running) {
+                List<SchemaChangedEvent> changes = new ArrayList<>();
+                Map<TopicPartition, Long> polled = new HashMap<>();
+                for (ConsumerRecord<byte[], byte[]> record : c.poll(POLL_TIMEOUT)) {
+                    parse(record.key(), record.value()).ifPresent(changes::add);
+                    polled.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+                }
+                if (!changes.isEmpty()) {
+                    apply(changes);
+                }
+                positions.putAll(polled);
+            }
+        } finally {
+            this.consumer = null;
+        }
+    }
+
+    private void seek(KafkaConsumer<byte[], byte[]> c, List<TopicPartition> partitions) {
+        Map<TopicPartition, Long> since = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            Long position = positions.get(partition);
+            if (position != null) {
+                c.seek(partition, position);
+            } else {
+                since.put(partition, ManagementFactory.getRuntimeMXBean().getStartTime());
+            }
+        }
+        if (since.isEmpty()) {
+            return;
+        }
+        List<TopicPartition> withoutChanges = new ArrayList<>();
+        c.offsetsForTimes(since).forEach((partition, found) -> {
+            if (found != null) {
+                c.seek(partition, found.offset());
+            } else {
+                withoutChanges.add(partition);
+            }
+        });
+        c.seekToEnd(withoutChanges);
+    }
+
+    private void apply(List<SchemaChangedEvent> changes) {
+        Set<String> subjects = new LinkedHashSet<>();
+        for (SchemaChangedEvent change : changes) {
+            log.info("Schema-Änderung: Subject {} Version {} (ID {}){}", change.subject(), change.version(),
+                    change.schemaId(), change.deleted() ? " gelöscht" : "");
+            subjects.add(change.subject());
+        }
+        if (schemaRegistryClient instanceof SubjectScopedSchemaRegistryClient scoped) {
+            subjects.forEach(scoped::refresh);
+        } else {
+            // Andere Clients bieten kein gezieltes Invalidieren
+            schemaRegistryClient.reset();
+        }
+
+        ExecutorService current = notifier;
+        if (current != null) {
+            current.execute(() -> notifyListeners(changes));
+        }
+    }
+
+    private void notifyListeners(List<SchemaChangedEvent> changes) {
+        for (SchemaChangedEvent change : changes) {
+            for (Consumer<SchemaChangedEvent> listener : listeners) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException e) {
+                    log.warn("Listener für Schema-Änderungen fehlgeschlagen", e);
+                }
+            }
+            try {
+                eventPublisher.publishEvent(change);
+            } catch (RuntimeException e) {
+                log.warn("Event-Listener für Schema-Änderungen fehlgeschlagen", e);
+            }
+        }
+    }
+
+    /**
+     * Wertet einen Record des {@code _schemas}-Topics aus. Relevant sind nur Schlüssel vom Typ {@code SCHEMA};
+     * Konfigurations-, Modus- und NOOP-Records werden ignoriert.
+     *
+     * @param key   der JSON-Schlüssel, z. B. {@code {"keytype":"SCHEMA","subject":"s","version":1,"magic":1}}
+     * @param value der JSON-Wert mit {@code subject}, {@code version}, {@code id} und {@code deleted}, oder
+     *              {@code null} bei endgültig gelöschten Versionen
+     * @return die Änderung, oder leer, wenn der Record keine Schema-Version betrifft
+     */
+    static Optional<SchemaChangedEvent> parse(byte[] key, byte[] value) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode keyNode = MAPPER.readTree(key);
+            if (!"SCHEMA".equals(keyNode.path("keytype").asText())) {
+                return Optional.empty();
+            }
+            String subject = keyNode.path("subject").asText();
+            int version = keyNode.path("version").asInt();
+            if (value == null) {
+                return Optional.of(new SchemaChangedEvent(subject, version, SchemaTrafficTracker.UNKNOWN_SCHEMA_ID, true));
+            }
+            JsonNode valueNode = MAPPER.readTree(value);
+            return Optional.of(new SchemaChangedEvent(subject, version,
+                    valueNode.path("id").asInt(SchemaTrafficTracker.UNKNOWN_SCHEMA_ID),
+                    valueNode.path("deleted").asBoolean(false)));
+        } catch (IOException e) {
+            log.debug("Record im Schemas-Topic nicht lesbar: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.SchemaTrafficStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator-Endpoint {@code /actuator/schematraffic} mit der zuletzt zusammengeführten Schema-Verkehrsstatistik.
+ */
+@Component
+@Endpoint(id = "schematraffic")
+@RequiredArgsConstructor
+public class SchemaTrafficEndpoint {
+
+    private final SchemaTrafficTracker tracker;
+
+    @ReadOperation
+    public List<SchemaTrafficStats> schemaTraffic() {
+        return tracker.getSnapshot();
+    }
+}
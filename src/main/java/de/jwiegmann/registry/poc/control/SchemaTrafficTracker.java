@@ -0,0 +1,273 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.SchemaChangedEvent;
+import de.jwiegmann.registry.poc.control.dto.SchemaTrafficStats;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.entities.SubjectVersion;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zählt Records, Bytes und Validierungsfehler je Topic × Schema-ID.
+ * <p>
+ * Der Hot-Path ({@link #recordSuccess}/{@link #recordFailure}) schreibt ausschließlich in gestreifte
+ * {@link LongAdder}-Zähler und einen Zeitstempel – ohne Locks und ohne Registry-Zugriffe.
+ * Subject und Version zu einer Schema-ID werden erst beim periodischen Zusammenführen
+ * ({@link #merge()}) aufgelöst, ebenso die Registrierung der Micrometer-Meter.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaTrafficTracker {
+
+    /**
+     * Schema-ID für Payloads ohne gültiges Confluent Wire-Format (Magic Byte + 4 Byte ID).
+     */
+    public static final int UNKNOWN_SCHEMA_ID = -1;
+
+    private final SchemaRegistryClient schemaRegistryClient;
+    private final MeterRegistry meterRegistry;
+
+    // Topic -> Schema-ID -> Zähler
+    private final Map<String, Map<Integer, Counters>> counters = new ConcurrentHashMap<>();
+
+    // Schema-ID -> aufgelöste Subject-Versionen (neue nur, wenn dasselbe Schema unter einem weiteren Subject landet)
+    private final Map<Integer, List<SubjectVersion>> resolvedVersions = new ConcurrentHashMap<>();
+
+    private volatile List<SchemaTrafficStats> snapshot = List.of();
+
+    /**
+     * Zählt einen erfolgreich deserialisierten Record.
+     *
+     * @param topic    das Topic des Records
+     * @param schemaId die Schema-ID aus dem Wire-Format
+     * @param bytes    die Payload-Größe in Bytes
+     */
+    public void recordSuccess(String topic, int schemaId, int bytes) {
+        Counters c = countersFor(topic, schemaId);
+        c.records.increment();
+        c.bytes.add(bytes);
+        c.lastSeenMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Zählt einen Record, dessen Deserialisierung bzw. Schema-Validierung fehlgeschlagen ist.
+     *
+     * @param topic    das Topic des Records
+     * @param schemaId die Schema-ID aus dem Wire-Format
+     * @param bytes    die Payload-Größe in Bytes
+     */
+    public void recordFailure(String topic, int schemaId, int bytes) {
+        Counters c = countersFor(topic, schemaId);
+        c.records.increment();
+        c.bytes.add(bytes);
+        c.failures.increment();
+        c.lastSeenMillis = System.currentTimeMillis();
+    }
+
+    private Counters countersFor(String topic, int schemaId) {
+        Map<Integer, Counters> byId = counters.get(topic);
+        if (byId == null) {
+            byId = counters.computeIfAbsent(topic, t -> new ConcurrentHashMap<>());
+        }
+        Counters c = byId.get(schemaId);
+        if (c == null) {
+            c = byId.computeIfAbsent(schemaId, id -> new Counters());
+        }
+        return c;
+    }
+
+    /**
+     * Führt die gestreiften Zähler zu einem unveränderlichen Snapshot zusammen, löst neue Schema-IDs
+     * gegen die Registry auf und registriert für neue Kombinationen die Micrometer-Meter.
+     */
+    @Scheduled(fixedDelayString = "${schema.traffic.merge-interval:PT10S}")
+    public void merge() {
+        List<SchemaTrafficStats> merged = new ArrayList<>();
+
+        counters.forEach((topic, byId) -> byId.forEach((schemaId, c) -> {
+            List<SubjectVersion> versions = resolve(schemaId);
+            registerMeters(topic, schemaId, versions, c);
+            Instant lastSeen = Instant.ofEpochMilli(c.lastSeenMillis);
+            long records = c.records.sum();
+            long bytes = c.bytes.sum();
+            long failures = c.failures.sum();
+
+            if (versions.isEmpty()) {
+                merged.add(new SchemaTrafficStats(topic, schemaId, null, null, records, bytes, failures, lastSeen));
+            }
+            for (SubjectVersion sv : versions) {
+                merged.add(new SchemaTrafficStats(topic, schemaId, sv.getSubject(), sv.getVersion(),
+                        records, bytes, failures, lastSeen));
+            }
+        }));
+
+        merged.sort(Comparator.comparing(SchemaTrafficStats::topic).thenComparingInt(SchemaTrafficStats::schemaId));
+        snapshot = List.copyOf(merged);
+    }
+
+    /**
+     * Gibt den zuletzt zusammengeführten Snapshot zurück.
+     *
+     * @return die Statistik je Topic × Schema-ID × Subject-Version
+     */
+    public List<SchemaTrafficStats> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Ermittelt, wann eine Subject-Version zuletzt auf irgendeinem Topic gesehen wurde.
+     * Liest für bereits aufgelöste Schema-IDs die Zähler direkt, damit die Antwort nicht um ein Merge-Intervall
+     * verzögert ist; ohne Registry-Zugriff. Noch nicht aufgelöste IDs zählen erst nach dem nächsten Merge.
+     *
+     * @param subject das Subject in der Registry
+     * @param version die Version des Subjects
+     * @return der jüngste Zeitstempel, oder leer, wenn die Version nie gesehen wurde
+     */
+    public Optional<Instant> lastSeen(String subject, int version) {
+        long latest = 0;
+        // Der Snapshot deckt IDs ab, deren Auflösung seit dem letzten Merge verworfen wurde
+        for (SchemaTrafficStats stats : snapshot) {
+            if (subject.equals(stats.subject()) && stats.version() != null && stats.version() == version) {
+                latest = Math.max(latest, stats.lastSeen().toEpochMilli());
+            }
+        }
+        for (Map<Integer, Counters> byId : counters.values()) {
+            for (Map.Entry<Integer, Counters> entry : byId.entrySet()) {
+                boolean matches = resolvedVersions.getOrDefault(entry.getKey(), List.of()).stream()
+                        .anyMatch(sv -> sv.getSubject().equals(subject) && sv.getVersion() == version);
+                if (matches) {
+                    latest = Math.max(latest, entry.getValue().lastSeenMillis);
+                }
+            }
+        }
+        return latest == 0 ? Optional.empty() : Optional.of(Instant.ofEpochMilli(latest));
+    }
+
+    /**
+     * Verwirft die aufgelösten Subject-Versionen einer Schema-ID, wenn diese unter einem Subject neu registriert
+     * oder gelöscht wurde; beim nächsten Merge wird neu aufgelöst.
+     *
+     * @param change die vom {@link SchemaRegistryWatcher} gemeldete Änderung
+     */
+    @EventListener
+    public void onSchemaChanged(SchemaChangedEvent change) {
+        if (change.schemaId() == UNKNOWN_SCHEMA_ID) {
+            resolvedVersions.clear();
+        } else {
+            resolvedVersions.remove(change.schemaId());
+        }
+    }
+
+    /**
+     * Verwirft alle Zähler, aufgelösten Versionen und den Snapshot und entfernt die registrierten Meter aus der
+     * {@link MeterRegistry}. Nützlich für Test-Isolation.
+     */
+    public void reset() {
+        counters.values().forEach(byId -> byId.values().forEach(c -> c.meters.forEach(meterRegistry::remove)));
+        counters.clear();
+        resolvedVersions.clear();
+        snapshot = List.of();
+    }
+
+    private List<SubjectVersion> resolve(int schemaId) {
+        if (schemaId == UNKNOWN_SCHEMA_ID) {
+            return List.of();
+        }
+        List<SubjectVersion> cached = resolvedVersions.get(schemaId);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            Collection<SubjectVersion> versions = schemaRegistryClient.getAllVersionsById(schemaId);
+            List<SubjectVersion> result = List.copyOf(versions);
+            // Leere Antworten nicht cachen (z. B. Registrierung noch nicht repliziert), beim nächsten Merge erneut
+            if (!result.isEmpty()) {
+                resolvedVersions.put(schemaId, result);
+            }
+            return result;
+        } catch (Exception e) {
+            // Nicht cachen, beim nächsten Merge erneut versuchen
+            log.warn("Subject-Versionen für Schema-ID {} konnten nicht aufgelöst werden: {}", schemaId, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Registriert die Meter einer Topic × Schema-ID-Kombination je Subject-Version, unter der die Schema-ID
+     * registriert ist – analog zum Snapshot. Ist dasselbe Schema unter mehreren Subjects registriert, zählen
+     * die Meter dieser Versionen dieselben Records; beim Aufsummieren über Subjects also nach
+     * {@code schema_id} gruppieren. Später hinzukommende Subject-Versionen erhalten beim nächsten Merge Meter.
+     */
+    private void registerMeters(String topic, int schemaId, List<SubjectVersion> versions, Counters c) {
+        if (schemaId == UNKNOWN_SCHEMA_ID) {
+            registerMeters(topic, schemaId, "unknown", "unknown", c);
+        }
+        // ohne aufgelöste Versionen erst registrieren, wenn Subject/Version bekannt sind
+        for (SubjectVersion sv : versions) {
+            registerMeters(topic, schemaId, sv.getSubject(), String.valueOf(sv.getVersion()), c);
+        }
+    }
+
+    private void registerMeters(String topic, int schemaId, String subject, String version, Counters c) {
+        if (!c.meteredVersions.add(subject + ':' + version)) {
+            return;
+        }
+        Tags tags = Tags.of(
+                "topic", topic,
+                "schema_id", String.valueOf(schemaId),
+                "subject", subject,
+                "version", version);
+
+        c.meters.add(FunctionCounter.builder("schema.traffic.records", c.records, LongAdder::sum)
+                .description("Empfangene Records je Schema-Version")
+                .tags(tags)
+                .register(meterRegistry));
+        c.meters.add(FunctionCounter.builder("schema.traffic.bytes", c.bytes, LongAdder::sum)
+                .description("Empfangene Payload-Bytes je Schema-Version")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(meterRegistry));
+        c.meters.add(FunctionCounter.builder("schema.traffic.failures", c.failures, LongAdder::sum)
+                .description("Fehlgeschlagene Validierungen je Schema-Version")
+                .tags(tags)
+                .register(meterRegistry));
+        c.meters.add(TimeGauge.builder("schema.traffic.last.seen", c, TimeUnit.MILLISECONDS,
+                        counters -> counters.lastSeenMillis)
+                .description("Zeitpunkt des letzten Records je Schema-Version (Epoch)")
+                .tags(tags)
+                .register(meterRegistry));
+    }
+
+    private static final class Counters {
+        private final LongAdder records = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile long lastSeenMillis;
+        // Subject-Versionen ("subject:version"), für die bereits Meter registriert sind
+        private final Set<String> meteredVersions = ConcurrentHashMap.newKeySet();
+        // Registrierte Meter, damit reset() sie wieder entfernen kann
+        private final List<Meter> meters = new CopyOnWriteArrayList<>();
+    }
+}
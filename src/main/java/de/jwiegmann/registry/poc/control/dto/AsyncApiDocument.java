@@ -0,0 +1,10 @@
+package de.jwiegmann.registry.poc.control.dto;
+
+/**
+ * Ein generiertes AsyncAPI-Dokument samt ETag.
+ *
+ * @param yaml das Dokument als UTF-8-kodiertes YAML
+ * @param etag der starke ETag (Hash des Inhalts, in Anführungszeichen)
+ */
+public record AsyncApiDocument(byte[] yaml, String etag) {
+}
@@ -0,0 +1,29 @@
+package de.jwiegmann.registry.poc.control.dto;
+
+/**
+ * Auftrag zum Wiederaufbereiten eines Offset-Bereichs aus einem Dead-Letter-Topic.
+ *
+ * @param deadLetterTopic das Dead-Letter-Topic
+ * @param subject         das Subject, gegen das validiert wird (Standard: Subject von {@link MyKafkaMessage})
+ * @param version         die Version des Subjects, {@code null} für die neueste
+ * @param targetTopic     Ziel-Topic, {@code null} für das Ursprungs-Topic aus dem DLQ-Header
+ * @param partition       nur diese Partition verarbeiten, {@code null} für alle
+ * @param fromOffset      erster Offset in {@code partition} (inklusive), {@code null} für die zuletzt committete
+ *                        Position des Reprocessors; nur zusammen mit {@code partition}
+ * @param toOffset        letzter Offset in {@code partition} (exklusive), {@code null} für das aktuelle Ende;
+ *                        nur zusammen mit {@code partition}
+ * @param parallelism     Anzahl parallel verarbeiteter Partitionen, {@code null} für den konfigurierten Standard
+ * @param batchSize       Anzahl Records je Sende-Batch, {@code null} für den konfigurierten Standard
+ */
+public record DeadLetterReprocessingRequest(
+        String deadLetterTopic,
+        String subject,
+        Integer version,
+        String targetTopic,
+        Integer partition,
+        Long fromOffset,
+        Long toOffset,
+        Integer parallelism,
+        Integer batchSize
+) {
+}
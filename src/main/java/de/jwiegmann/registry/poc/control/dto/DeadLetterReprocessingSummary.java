@@ -0,0 +1,29 @@
+package de.jwiegmann.registry.poc.control.dto;
+
+import java.util.Map;
+
+/**
+ * Ergebnis einer Wiederaufbereitung aus dem Dead-Letter-Topic.
+ *
+ * @param deadLetterTopic das gelesene Dead-Letter-Topic
+ * @param subject         das Subject, gegen das validiert wurde
+ * @param version         die verwendete Version des Subjects
+ * @param schemaId        die Schema-ID, mit der die Records neu geschrieben wurden
+ * @param read            Anzahl gelesener Records
+ * @param republished     Anzahl erfolgreich zurückgeschriebener Records
+ * @param stillFailing    Anzahl weiterhin ungültiger oder nicht sendbarer Records
+ * @param failureReasons  verbleibende Fehlergründe (JSON-Pointer und Schlüsselwort) mit Anzahl, absteigend sortiert
+ * @param durationMillis  Laufzeit in Millisekunden
+ */
+public record DeadLetterReprocessingSummary(
+        String deadLetterTopic,
+        String subject,
+        int version,
+        int schemaId,
+        long read,
+        long republished,
+        long stillFailing,
+        Map<String, Long> failureReasons,
+        long durationMillis
+) {
+}
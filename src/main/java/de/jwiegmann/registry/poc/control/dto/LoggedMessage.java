@@ -0,0 +1,13 @@
+package de.jwiegmann.registry.poc.control.dto;
+
+import java.time.Instant;
+
+/**
+ * Eine im lokalen Append-Log gespeicherte Nachricht.
+ *
+ * @param offset    die fortlaufende Position im Log
+ * @param timestamp der Zeitpunkt des Anhängens
+ * @param message   die validierte Nachricht
+ */
+public record LoggedMessage(long offset, Instant timestamp, MyKafkaMessage message) {
+}
@@ -0,0 +1,15 @@
+package de.jwiegmann.registry.poc.control.dto;
+
+/**
+ * Abgeschätzte Verteilung der serialisierten Payload-Größen eines Topics im gleitenden Fenster der letzten ein
+ * bis zwei Auswertungsintervalle.
+ *
+ * @param topic das Topic
+ * @param count Anzahl der serialisierten Records im Fenster
+ * @param p50   Median in Bytes (obere Bucket-Grenze)
+ * @param p95   95. Perzentil in Bytes (obere Bucket-Grenze)
+ * @param p99   99. Perzentil in Bytes (obere Bucket-Grenze)
+ * @param max   größte Payload im Fenster in Bytes
+ */
+public record PayloadSizeStats(String topic, long count, long p50, long p95, long p99, long max) {
+}
@@ -0,0 +1,17 @@
+package de.jwiegmann.registry.poc.control.dto;
+
+/**
+ * Eine im {@code _schemas}-Topic der Registry beobachtete Registrierung oder Löschung einer Subject-Version.
+ *
+ * @param subject  das Subject in der Registry
+ * @param version  die Version des Subjects
+ * @param schemaId die Schema-ID, {@code -1} bei endgültig gelöschten Versionen (Tombstone)
+ * @param deleted  {@code true}, wenn die Version (soft oder hard) gelöscht wurde
+ */
+public record SchemaChangedEvent(
+        String subject,
+        int version,
+        int schemaId,
+        boolean deleted
+) {
+}
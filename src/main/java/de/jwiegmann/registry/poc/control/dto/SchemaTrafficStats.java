@@ -0,0 +1,27 @@
+package de.jwiegmann.registry.poc.control.dto;
+
+import java.time.Instant;
+
+/**
+ * Zusammengeführte Verkehrsstatistik für eine Kombination aus Topic, Schema-ID und Subject-Version.
+ *
+ * @param topic    das Kafka-Topic
+ * @param schemaId die Schema-ID aus dem Confluent Wire-Format
+ * @param subject  das Subject in der Registry, {@code null} falls (noch) nicht aufgelöst
+ * @param version  die Version im Subject, {@code null} falls (noch) nicht aufgelöst
+ * @param records  Anzahl empfangener Records
+ * @param bytes    Summe der Payload-Bytes
+ * @param failures Anzahl fehlgeschlagener Validierungen
+ * @param lastSeen Zeitpunkt des letzten Records
+ */
+public record SchemaTrafficStats(
+        String topic,
+        int schemaId,
+        String subject,
+        Integer version,
+        long records,
+        long bytes,
+        long failures,
+        Instant lastSeen
+) {
+}
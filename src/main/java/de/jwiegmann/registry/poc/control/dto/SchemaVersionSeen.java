@@ -0,0 +1,21 @@
+package de.jwiegmann.registry.poc.control.dto;
+
+import java.time.Instant;
+
+/**
+ * Antwort auf die Frage, ob eine Subject-Version in einem Zeitfenster empfangen wurde.
+ *
+ * @param subject     das Subject in der Registry
+ * @param version     die Version des Subjects
+ * @param windowHours das betrachtete Zeitfenster in Stunden
+ * @param seen        {@code true}, wenn mindestens ein Record im Zeitfenster empfangen wurde
+ * @param lastSeen    Zeitpunkt des letzten Records, {@code null} wenn nie gesehen
+ */
+public record SchemaVersionSeen(
+        String subject,
+        int version,
+        long windowHours,
+        boolean seen,
+        Instant lastSeen
+) {
+}
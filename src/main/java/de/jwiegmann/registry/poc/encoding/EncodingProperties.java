@@ -0,0 +1,37 @@
+package de.jwiegmann.registry.poc.encoding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Kodierung je Topic ({@code kafka.encoding.*}).
+ *
+ * @param topics     Topic → Kodierung für den Producer; nicht aufgeführte Topics verwenden {@link MessageEncoding#JSON}
+ * @param acceptAvro ob der Consumer neben JSON auch Avro-Records akzeptiert (Migrationsfenster)
+ */
+@ConfigurationProperties(prefix = "kafka.encoding")
+public record EncodingProperties(Map<String, MessageEncoding> topics, boolean acceptAvro) {
+
+    public EncodingProperties {
+        topics = topics != null ? Map.copyOf(topics) : Map.of();
+    }
+
+    /**
+     * Prüft, ob mindestens ein Topic Avro produziert.
+     *
+     * @return {@code true}, wenn ein Topic auf {@link MessageEncoding#AVRO} steht
+     */
+    public boolean producesAvro() {
+        return topics.containsValue(MessageEncoding.AVRO);
+    }
+
+    /**
+     * Prüft, ob der Consumer Avro-Records dekodieren muss.
+     *
+     * @return {@code true}, wenn Avro akzeptiert oder selbst produziert wird
+     */
+    public boolean consumesAvro() {
+        return acceptAvro || producesAvro();
+    }
+}
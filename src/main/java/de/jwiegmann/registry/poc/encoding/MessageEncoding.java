@@ -0,0 +1,17 @@
+package de.jwiegmann.registry.poc.encoding;
+
+/**
+ * Wire-Kodierung eines Topics.
+ */
+public enum MessageEncoding {
+
+    /**
+     * JSON-Text, validiert gegen ein JSON Schema aus der Registry (Standard).
+     */
+    JSON,
+
+    /**
+     * Kompaktes Avro-Binärformat mit Avro-Schema aus der Registry.
+     */
+    AVRO
+}
@@ -0,0 +1,62 @@
+package de.jwiegmann.registry.poc.encoding;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Bildet {@link MyKafkaMessage} auf den Avro-Record aus {@code avro/MyKafkaMessage.avsc} ab und zurück.
+ * <p>
+ * Beim Lesen werden Records älterer Writer-Schemas toleriert: Fehlt ein Feld oder ist es {@code null}, gilt der
+ * Standardwert des DTOs (wie beim JSON-Binding {@code null} bzw. {@value #DEFAULT_VERSION} für {@code version}).
+ */
+public final class MyKafkaMessageAvroMapper {
+
+    /**
+     * Das Avro-Schema des logischen Records; der volle Name ist zugleich das Subject (RecordNameStrategy).
+     */
+    public static final Schema SCHEMA = loadSchema();
+
+    /**
+     * Wert für {@code version}, wenn das Writer-Schema das Feld nicht kennt; entspricht dem JSON-Binding.
+     */
+    static final int DEFAULT_VERSION = 0;
+
+    private MyKafkaMessageAvroMapper() {
+    }
+
+    public static GenericRecord toRecord(MyKafkaMessage message) {
+        GenericData.Record record = new GenericData.Record(SCHEMA);
+        record.put(0, message.getId());
+        record.put(1, message.getMessage());
+        record.put(2, message.getVersion());
+        return record;
+    }
+
+    public static MyKafkaMessage fromRecord(GenericRecord record) {
+        Object id = field(record, "id");
+        Object message = field(record, "message");
+        return new MyKafkaMessage(
+                id != null ? id.toString() : null,
+                message != null ? message.toString() : null,
+                field(record, "version") instanceof Number version ? version.intValue() : DEFAULT_VERSION);
+    }
+
+    private static Object field(GenericRecord record, String name) {
+        // GenericData.Record#get(String) wirft bei Feldern, die das Writer-Schema nicht kennt
+        return record.getSchema().getField(name) != null ? record.get(name) : null;
+    }
+
+    private static Schema loadSchema() {
+        try (InputStream is = MyKafkaMessageAvroMapper.class.getResourceAsStream("/avro/MyKafkaMessage.avsc")) {
+            return new Schema.Parser().parse(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
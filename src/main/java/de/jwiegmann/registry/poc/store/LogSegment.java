@@ -0,0 +1,333 @@
+package de.jwiegmann.registry.poc.store;
+
+import de.jwiegmann.registry.poc.control.dto.LoggedMessage;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Eine Segment-Datei des {@link MessageLog}. Der Dateiname ist der Offset des ersten Records (20 Stellen).
+ * <p>
+ * Aufbau eines Records:
+ * <pre>
+ * Länge (int) | CRC32C des Rests (int) | Offset (long) | Zeitstempel (long) | Version (int)
+ *             | ID-Länge (int, -1 = null) | ID (UTF-8) | Nachrichten-Länge (int, -1 = null) | Nachricht (UTF-8)
+ * </pre>
+ * Geschrieben wird über den {@link FileChannel}. Das aktive Segment wird positionell über den Kanal in einen
+ * Heap-Puffer gelesen; erst beim Versiegeln wird es einmalig vollständig als
+ * {@link java.nio.MappedByteBuffer Speicherabbildung} angelegt, über die alle weiteren Lesezugriffe laufen.
+ * Der dünne Offset-Index (alle {@code indexIntervalBytes} ein Eintrag) liegt im Heap und wird beim Öffnen aus der
+ * Datei aufgebaut.
+ */
+@Slf4j
+final class LogSegment {
+
+    static final String SUFFIX = ".log";
+
+    // Länge + CRC32C
+    static final int FRAME_HEADER_BYTES = 8;
+    // Offset + Zeitstempel + Version + ID-Länge + Nachrichten-Länge
+    static final int FIXED_BODY_BYTES = 28;
+    // Lesepuffer für das aktive Segment; größere Records bekommen einen eigenen Puffer
+    private static final int TAIL_CHUNK_BYTES = 64 * 1024;
+
+    private final long baseOffset;
+    private final Path path;
+    private final FileChannel channel;
+    private final int indexIntervalBytes;
+
+    private volatile int size;
+    private volatile long nextOffset;
+    private volatile long maxTimestamp;
+
+    // Dünner Offset-Index, geschützt durch this
+    private long[] indexOffsets = new long[64];
+    private int[] indexPositions = new int[64];
+    private int indexEntries;
+    private int bytesSinceIndexEntry;
+    // Erst beim Versiegeln gesetzt, danach unveränderlich
+    private volatile ByteBuffer mapped;
+
+    private LogSegment(long baseOffset, Path path, FileChannel channel, int indexIntervalBytes) {
+        this.baseOffset = baseOffset;
+        this.path = path;
+        this.channel = channel;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.nextOffset = baseOffset;
+    }
+
+    /**
+     * Legt ein leeres Segment an.
+     */
+    static LogSegment create(Path directory, long baseOffset, int indexIntervalBytes) throws IOException {
+        Path path = directory.resolve(fileName(baseOffset));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(baseOffset, path, channel, indexIntervalBytes);
+    }
+
+    /**
+     * Öffnet ein vorhandenes Segment, prüft alle Records und schneidet die Datei hinter dem letzten vollständigen,
+     * unbeschädigten Record ab (z. B. nach einem Absturz während des Schreibens).
+     *
+     * @param ids erhält ID und Offset jedes gültigen Records, um den ID-Index aufzubauen
+     */
+    static LogSegment open(Path path, int indexIntervalBytes, ObjLongConsumer<String> ids) throws IOException {
+        String name = path.getFileName().toString();
+        long baseOffset = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        LogSegment segment = new LogSegment(baseOffset, path, channel, indexIntervalBytes);
+        segment.recover(ids);
+        return segment;
+    }
+
+    static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, SUFFIX);
+    }
+
+    private void recover(ObjLongConsumer<String> ids) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        CRC32C crc = new CRC32C();
+        int pos = 0;
+        long expected = baseOffset;
+        while (pos + FRAME_HEADER_BYTES + FIXED_BODY_BYTES <= fileSize) {
+            int length = buf.getInt(pos);
+            if (length < FIXED_BODY_BYTES || pos + FRAME_HEADER_BYTES + (long) length > fileSize) {
+                break;
+            }
+            crc.reset();
+            crc.update(buf.slice(pos + FRAME_HEADER_BYTES, length));
+            if ((int) crc.getValue() != buf.getInt(pos + 4) || buf.getLong(pos + FRAME_HEADER_BYTES) != expected) {
+                break;
+            }
+            int body = pos + FRAME_HEADER_BYTES;
+            int idLength = buf.getInt(body + 20);
+            ids.accept(string(buf, body + 24, idLength), expected);
+            appended(expected, buf.getLong(body + 8), pos, FRAME_HEADER_BYTES + length);
+            pos += FRAME_HEADER_BYTES + length;
+            expected++;
+        }
+        if (pos < fileSize) {
+            log.warn("Segment {}: {} Bytes nach Offset {} unvollständig oder beschädigt – abgeschnitten",
+                    path.getFileName(), fileSize - pos, expected);
+            channel.truncate(pos);
+        }
+        size = pos;
+    }
+
+    /**
+     * Hängt einen fertig kodierten Record an.
+     *
+     * @param frame     der Record ab Länge, von position bis limit
+     * @param offset    der Offset des Records
+     * @param timestamp der Zeitstempel des Records
+     */
+    void append(ByteBuffer frame, long offset, long timestamp) throws IOException {
+        int position = size;
+        int length = frame.remaining();
+        long writePosition = position;
+        while (frame.hasRemaining()) {
+            writePosition += channel.write(frame, writePosition);
+        }
+        // Erst die Größe, dann den Offset veröffentlichen: Leser prüfen den Offset und lesen dann bis size
+        size = position + length;
+        appended(offset, timestamp, position, length);
+    }
+
+    private synchronized void appended(long offset, long timestamp, int position, int length) {
+        if (indexEntries == 0 || bytesSinceIndexEntry >= indexIntervalBytes) {
+            if (indexEntries == indexOffsets.length) {
+                indexOffsets = Arrays.copyOf(indexOffsets, indexEntries * 2);
+                indexPositions = Arrays.copyOf(indexPositions, indexEntries * 2);
+            }
+            indexOffsets[indexEntries] = offset;
+            indexPositions[indexEntries] = position;
+            indexEntries++;
+            bytesSinceIndexEntry = 0;
+        }
+        bytesSinceIndexEntry += length;
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        nextOffset = offset + 1;
+    }
+
+    /**
+     * Liest die Records {@code [from, to)}, soweit sie in diesem Segment liegen.
+     *
+     * @param from erster Offset (inklusive)
+     * @param to   letzter Offset (exklusive)
+     * @param sink erhält die Records in Offset-Reihenfolge
+     */
+    void read(long from, long to, Consumer<LoggedMessage> sink) throws IOException {
+        long end = Math.min(to, nextOffset);
+        long offset = Math.max(from, baseOffset);
+        if (offset >= end) {
+            return;
+        }
+        int limit = size;
+        int pos = floorPosition(offset);
+        ByteBuffer sealed = mapped;
+        if (sealed != null) {
+            scan(sealed, 0, pos, sealed.capacity(), offset, end, sink);
+            return;
+        }
+        ByteBuffer chunk = ByteBuffer.allocate(Math.min(TAIL_CHUNK_BYTES, limit - pos));
+        while (pos < limit) {
+            try {
+                chunk = readChunk(chunk, pos, limit);
+            } catch (ClosedChannelException e) {
+                // Während des Lesens versiegelt: der Rest steht vollständig in der Speicherabbildung
+                sealed = mapped;
+                if (sealed == null) {
+                    throw e;
+                }
+                scan(sealed, 0, pos, sealed.capacity(), offset, end, sink);
+                return;
+            }
+            pos = scan(chunk, pos, pos, pos + chunk.limit(), offset, end, sink);
+            if (pos < 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Liest die Records ab {@code pos} aus {@code buf}, dessen Index 0 der Dateiposition {@code base} entspricht.
+     *
+     * @return die Position hinter dem letzten vollständig enthaltenen Record, oder -1, sobald {@code end} erreicht ist
+     */
+    private static int scan(ByteBuffer buf, int base, int pos, int limit, long from, long end,
+                            Consumer<LoggedMessage> sink) {
+        while (pos + FRAME_HEADER_BYTES <= limit) {
+            int length = buf.getInt(pos - base);
+            int body = pos + FRAME_HEADER_BYTES;
+            if (body + length > limit) {
+                break;
+            }
+            long recordOffset = buf.getLong(body - base);
+            if (recordOffset >= end) {
+                return -1;
+            }
+            if (recordOffset >= from) {
+                sink.accept(decode(buf, body - base, recordOffset));
+            }
+            pos = body + length;
+        }
+        return pos;
+    }
+
+    /**
+     * Liest den noch nicht abgebildeten Bereich ab {@code pos} positionell in einen Heap-Puffer, mindestens aber
+     * den ersten Record vollständig.
+     */
+    private ByteBuffer readChunk(ByteBuffer chunk, int pos, int limit) throws IOException {
+        chunk.clear().limit(Math.min(chunk.capacity(), limit - pos));
+        fill(chunk, pos);
+        int frame = chunk.limit() >= FRAME_HEADER_BYTES ? FRAME_HEADER_BYTES + chunk.getInt(0) : 0;
+        if (frame > chunk.limit()) {
+            ByteBuffer larger = ByteBuffer.allocate(frame);
+            fill(larger, pos);
+            return larger.flip();
+        }
+        return chunk.flip();
+    }
+
+    private void fill(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new IOException("Segment " + path.getFileName() + " endet vor Position " + position);
+            }
+            position += read;
+        }
+    }
+
+    private static LoggedMessage decode(ByteBuffer buf, int body, long offset) {
+        long timestamp = buf.getLong(body + 8);
+        int version = buf.getInt(body + 16);
+        int idLength = buf.getInt(body + 20);
+        String id = string(buf, body + 24, idLength);
+        int messagePosition = body + 24 + Math.max(idLength, 0);
+        int messageLength = buf.getInt(messagePosition);
+        String message = string(buf, messagePosition + 4, messageLength);
+        return new LoggedMessage(offset, Instant.ofEpochMilli(timestamp), new MyKafkaMessage(id, message, version));
+    }
+
+    private static String string(ByteBuffer buf, int position, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private synchronized int floorPosition(long offset) {
+        int index = Arrays.binarySearch(indexOffsets, 0, indexEntries, offset);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index < 0 ? 0 : indexPositions[index];
+    }
+
+    /**
+     * Schreibt die Daten des Segments per {@code fsync} auf die Platte.
+     */
+    void flush() throws IOException {
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Beim Wechsel auf ein neues Segment bereits gesichert und geschlossen
+        }
+    }
+
+    /**
+     * Schließt das Segment für weitere Schreibzugriffe: sichert es, bildet es vollständig ab und schließt die Datei.
+     */
+    void seal() throws IOException {
+        flush();
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        channel.close();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Schließt und löscht das Segment. Laufende Lesezugriffe auf die Speicherabbildung bleiben gültig.
+     */
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    long nextOffset() {
+        return nextOffset;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+}
@@ -0,0 +1,378 @@
+package de.jwiegmann.registry.poc.store;
+
+import de.jwiegmann.registry.poc.control.dto.LoggedMessage;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Lokales, segmentiertes Append-Log für validierte {@link MyKafkaMessage}s ({@code kafka.message-log.*}).
+ * <p>
+ * Records werden binär kodiert ({@link LogSegment}) in einen wiederverwendeten Direct-Buffer geschrieben und an das
+ * aktive Segment angehängt. {@code fsync} erfolgt gebündelt: spätestens nach {@code flush-interval} oder sobald
+ * {@code flush-max-records} Records ungesichert sind. Bei einem Absturz gehen also höchstens die Records seit dem
+ * letzten {@code fsync} verloren; beim Start wird ein unvollständiger letzter Record abgeschnitten.
+ * <p>
+ * Gelesen wird über speicherabgebildete Segmente, sodass die Nachrichten nicht dauerhaft im Heap liegen. Der
+ * Offset-Index je Segment ist dünn besetzt; der ID-Index (ID → letzter Offset) wird beim Start aus den Segmenten
+ * aufgebaut. Alte Segmente werden nach Gesamtgröße und Alter gelöscht.
+ * <p>
+ * Ohne {@code kafka.message-log.enabled=true} ist {@link #append} wirkungslos und es wird nichts angelegt.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageLog implements InitializingBean, DisposableBean {
+
+    private final MessageLogProperties properties;
+
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> idIndex = new ConcurrentHashMap<>();
+    private final AtomicLong flushedOffset = new AtomicLong();
+
+    // Schreibpfad, geschützt durch this
+    private final CRC32C crc = new CRC32C();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer frame = ByteBuffer.allocateDirect(4096);
+
+    private volatile LogSegment active;
+    private volatile long nextOffset;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!properties.enabled()) {
+            return;
+        }
+        Path directory = properties.directory();
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(f -> f.getFileName().toString().endsWith(LogSegment.SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            LogSegment segment = LogSegment.open(file, properties.indexIntervalBytes(), idIndex::put);
+            if (!segments.isEmpty() && segment.baseOffset() != segments.lastEntry().getValue().nextOffset()) {
+                log.warn("Lücke im Message-Log vor Segment {}", file.getFileName());
+            }
+            segments.put(segment.baseOffset(), segment);
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, LogSegment.create(directory, 0, properties.indexIntervalBytes()));
+        }
+        // Nur das letzte Segment bleibt beschreibbar
+        for (LogSegment segment : segments.headMap(segments.lastKey(), false).values()) {
+            segment.seal();
+        }
+        active = segments.lastEntry().getValue();
+        nextOffset = active.nextOffset();
+        flushedOffset.set(nextOffset);
+        log.info("Message-Log {}: {} Segmente, Offsets {} bis {}", directory.toAbsolutePath(), segments.size(),
+                getStartOffset(), nextOffset);
+    }
+
+    /**
+     * Prüft, ob das Message-Log aktiv ist.
+     *
+     * @return {@code true}, wenn {@code kafka.message-log.enabled=true}
+     */
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Prüft, ob die gespeicherten Nachrichten beim Start wieder eingespielt werden sollen.
+     *
+     * @return {@code true}, wenn das Log aktiv und {@code replay-on-startup} gesetzt ist
+     */
+    public boolean isReplayOnStartup() {
+        return properties.enabled() && properties.replayOnStartup();
+    }
+
+    /**
+     * Hängt eine validierte Nachricht an. Die Nachricht ist danach lesbar, aber erst nach dem nächsten gebündelten
+     * {@code fsync} dauerhaft gesichert.
+     *
+     * @param message die Nachricht
+     * @return der vergebene Offset, oder {@code -1}, wenn das Log nicht aktiv ist
+     */
+    public long append(MyKafkaMessage message) {
+        if (!properties.enabled()) {
+            return -1;
+        }
+        long offset;
+        synchronized (this) {
+            offset = nextOffset;
+            long timestamp = System.currentTimeMillis();
+            encode(message, offset, timestamp);
+            try {
+                if (active.size() > 0 && active.size() + frame.remaining() > properties.segmentBytes()) {
+                    roll(offset);
+                }
+                active.append(frame, offset, timestamp);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Message-Log: Schreiben von Offset " + offset + " fehlgeschlagen", e);
+            }
+            if (message.getId() != null) {
+                idIndex.put(message.getId(), offset);
+            }
+            nextOffset = offset + 1;
+        }
+        if (offset + 1 - flushedOffset.get() >= properties.flushMaxRecords()) {
+            flush();
+        }
+        return offset;
+    }
+
+    /**
+     * Sichert alle bisher angehängten Records per {@code fsync}.
+     */
+    @Scheduled(fixedDelayString = "${kafka.message-log.flush-interval:PT0.05S}")
+    public void flush() {
+        if (!properties.enabled()) {
+            return;
+        }
+        // Erst den Offset, dann das Segment lesen: ein dazwischen abgeschlossenes Segment wurde beim Wechsel gesichert
+        long upTo = nextOffset;
+        if (upTo <= flushedOffset.get()) {
+            return;
+        }
+        try {
+            active.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Message-Log: fsync fehlgeschlagen", e);
+        }
+        flushedOffset.accumulateAndGet(upTo, Math::max);
+    }
+
+    /**
+     * Löscht die ältesten Segmente, solange das Log größer als {@code retention-bytes} ist oder ihr jüngster Record
+     * älter als {@code retention-time}. Das aktive Segment bleibt immer erhalten.
+     */
+    @Scheduled(fixedDelayString = "${kafka.message-log.retention-check-interval:PT1M}")
+    public synchronized void enforceRetention() {
+        if (!properties.enabled()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - properties.retentionTime().toMillis();
+        long total = getSizeBytes();
+        boolean deleted = false;
+        for (LogSegment segment : segments.values()) {
+            if (segment == active || (total <= properties.retentionBytes() && segment.maxTimestamp() >= cutoff)) {
+                break;
+            }
+            segments.remove(segment.baseOffset());
+            total -= segment.size();
+            deleted = true;
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.warn("Message-Log: Segment {} konnte nicht gelöscht werden: {}", segment.baseOffset(), e.getMessage());
+            }
+        }
+        if (deleted) {
+            long start = getStartOffset();
+            idIndex.values().removeIf(offset -> offset < start);
+            log.info("Message-Log: Segmente vor Offset {} gelöscht", start);
+        }
+    }
+
+    /**
+     * Liest den Record mit dem angegebenen Offset.
+     *
+     * @param offset der Offset
+     * @return der Record, oder leer, wenn der Offset (noch) nicht oder nicht mehr vorhanden ist
+     */
+    public Optional<LoggedMessage> read(long offset) {
+        List<LoggedMessage> result = new ArrayList<>(1);
+        read(offset, offset + 1, result::add);
+        return result.stream().findFirst();
+    }
+
+    /**
+     * Liest den zuletzt angehängten Record mit der angegebenen ID.
+     *
+     * @param id die Nachrichten-ID
+     * @return der Record, oder leer, wenn die ID unbekannt ist oder ihr Segment bereits gelöscht wurde
+     */
+    public Optional<LoggedMessage> findById(String id) {
+        Long offset = idIndex.get(id);
+        return offset == null ? Optional.empty() : read(offset);
+    }
+
+    /**
+     * Liest die zuletzt angehängten Records.
+     *
+     * @param limit die maximale Anzahl
+     * @return die Records in Offset-Reihenfolge
+     */
+    public List<LoggedMessage> recent(int limit) {
+        long to = nextOffset;
+        List<LoggedMessage> result = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        read(Math.max(getStartOffset(), to - limit), to, result::add);
+        return result;
+    }
+
+    /**
+     * Liest die Records {@code [from, to)} segmentweise, ohne sie zu sammeln.
+     *
+     * @param from erster Offset (inklusive)
+     * @param to   letzter Offset (exklusive)
+     * @param sink erhält die Records in Offset-Reihenfolge
+     */
+    public void read(long from, long to, Consumer<LoggedMessage> sink) {
+        if (!properties.enabled() || from >= to) {
+            return;
+        }
+        Long first = segments.floorKey(from);
+        for (LogSegment segment : segments.tailMap(first != null ? first : from).values()) {
+            if (segment.baseOffset() >= to) {
+                return;
+            }
+            try {
+                segment.read(from, to, sink);
+            } catch (IOException e) {
+                if (segments.containsKey(segment.baseOffset())) {
+                    throw new UncheckedIOException("Message-Log: Lesen ab Offset " + from + " fehlgeschlagen", e);
+                }
+                // Segment wurde während des Lesens durch die Retention gelöscht
+            }
+        }
+    }
+
+    /**
+     * Spielt die jüngsten {@link MessageLogProperties#replayMaxRecords()} Records in Offset-Reihenfolge ab.
+     *
+     * @param sink erhält jede abgespielte Nachricht
+     * @return die Anzahl der abgespielten Records
+     */
+    public long replay(Consumer<MyKafkaMessage> sink) {
+        long to = nextOffset;
+        long[] count = {0};
+        read(Math.max(getStartOffset(), to - properties.replayMaxRecords()), to, logged -> {
+            sink.accept(logged.message());
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * Der Offset des ältesten noch vorhandenen Records.
+     *
+     * @return der Start-Offset
+     */
+    public long getStartOffset() {
+        Map.Entry<Long, LogSegment> first = segments.firstEntry();
+        return first != null ? first.getKey() : nextOffset;
+    }
+
+    /**
+     * Der Offset, den der nächste Record erhält.
+     *
+     * @return der nächste Offset
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * Alle Records unterhalb dieses Offsets sind per {@code fsync} gesichert.
+     *
+     * @return der gesicherte Offset
+     */
+    public long getFlushedOffset() {
+        return flushedOffset.get();
+    }
+
+    /**
+     * Die Gesamtgröße aller Segmente.
+     *
+     * @return die Größe in Bytes
+     */
+    public long getSizeBytes() {
+        return segments.values().stream().mapToLong(LogSegment::size).sum();
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        if (active == null) {
+            return;
+        }
+        active.flush();
+        for (LogSegment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        active = null;
+    }
+
+    private void roll(long baseOffset) throws IOException {
+        active.seal();
+        LogSegment next = LogSegment.create(properties.directory(), baseOffset, properties.indexIntervalBytes());
+        segments.put(baseOffset, next);
+        active = next;
+    }
+
+    private void encode(MyKafkaMessage message, long offset, long timestamp) {
+        String id = message.getId();
+        String text = message.getMessage();
+        // UTF-8 benötigt höchstens 3 Bytes je UTF-16-Zeichen
+        int maxBytes = LogSegment.FRAME_HEADER_BYTES + LogSegment.FIXED_BODY_BYTES
+                + 3 * ((id != null ? id.length() : 0) + (text != null ? text.length() : 0));
+        if (frame.capacity() < maxBytes) {
+            frame = ByteBuffer.allocateDirect(Integer.highestOneBit(maxBytes) << 1);
+        }
+        frame.clear();
+        frame.position(LogSegment.FRAME_HEADER_BYTES);
+        frame.putLong(offset);
+        frame.putLong(timestamp);
+        frame.putInt(message.getVersion());
+        putString(id);
+        putString(text);
+        frame.flip();
+
+        int length = frame.limit() - LogSegment.FRAME_HEADER_BYTES;
+        crc.reset();
+        crc.update(frame.slice(LogSegment.FRAME_HEADER_BYTES, length));
+        frame.putInt(0, length);
+        frame.putInt(4, (int) crc.getValue());
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            frame.putInt(-1);
+            return;
+        }
+        int lengthPosition = frame.position();
+        frame.putInt(0);
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(value), frame, true);
+        encoder.flush(frame);
+        frame.putInt(lengthPosition, frame.position() - lengthPosition - 4);
+    }
+}
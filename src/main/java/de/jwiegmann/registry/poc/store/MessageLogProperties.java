@@ -0,0 +1,38 @@
+package de.jwiegmann.registry.poc.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Lokales Append-Log für validierte Nachrichten ({@code kafka.message-log.*}).
+ *
+ * @param enabled            ob validierte Nachrichten auf Platte geschrieben werden
+ * @param directory          Verzeichnis der Segment-Dateien
+ * @param segmentBytes       Größe, ab der ein neues Segment begonnen wird
+ * @param indexIntervalBytes Abstand der Einträge im (dünnen) Offset-Index
+ * @param flushInterval      spätester Zeitpunkt für das nächste gebündelte {@code fsync}
+ * @param flushMaxRecords    Anzahl ungesicherter Records, ab der sofort {@code fsync} ausgeführt wird
+ * @param retentionBytes     Gesamtgröße, ab der die ältesten Segmente gelöscht werden
+ * @param retentionTime      Alter, ab dem ein Segment (nach seinem jüngsten Record) gelöscht wird
+ * @param replayOnStartup    ob die gespeicherten Nachrichten beim Start wieder in den Consumer-Service geladen werden
+ * @param replayMaxRecords   Anzahl der jüngsten Records, die beim Start eingespielt werden; ältere bleiben nur über
+ *                           das Log lesbar
+ */
+@ConfigurationProperties(prefix = "kafka.message-log")
+public record MessageLogProperties(boolean enabled, Path directory, int segmentBytes, int indexIntervalBytes,
+                                   Duration flushInterval, int flushMaxRecords, long retentionBytes,
+                                   Duration retentionTime, boolean replayOnStartup, int replayMaxRecords) {
+
+    public MessageLogProperties {
+        directory = directory != null ? directory : Path.of("data", "message-log");
+        segmentBytes = segmentBytes > 0 ? segmentBytes : 64 * 1024 * 1024;
+        indexIntervalBytes = indexIntervalBytes > 0 ? indexIntervalBytes : 4096;
+        flushInterval = flushInterval != null ? flushInterval : Duration.ofMillis(50);
+        flushMaxRecords = flushMaxRecords > 0 ? flushMaxRecords : 1_000;
+        retentionBytes = retentionBytes > 0 ? retentionBytes : 1024L * 1024 * 1024;
+        retentionTime = retentionTime != null ? retentionTime : Duration.ofDays(7);
+        replayMaxRecords = replayMaxRecords > 0 ? replayMaxRecords : 10_000;
+    }
+}
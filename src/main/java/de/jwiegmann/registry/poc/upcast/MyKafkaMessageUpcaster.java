@@ -0,0 +1,248 @@
+package de.jwiegmann.registry.poc.upcast;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bildet JSON-Payloads beliebiger registrierter Schema-Versionen direkt auf {@link MyKafkaMessage} ab.
+ * <p>
+ * Je Schema-ID wird einmal ein {@link Plan} aus den Properties des registrierten Schemas abgeleitet und gecacht:
+ * welches Feld der Version auf welches DTO-Feld geht (gleicher Name oder konfigurierter Alias), welche Felder
+ * verworfen werden und welche Standardwerte für fehlende DTO-Felder gelten. Angewendet wird der Plan token-weise
+ * mit einem {@link JsonParser} – ohne {@code JsonNode}-Baum und ohne reflektives Binden. Zahlen in String-Feldern
+ * und Zahlen als String in {@code version} werden umgewandelt.
+ * <p>
+ * Der Plan setzt voraus, dass der Payload bereits gegen sein eigenes Schema validiert wurde.
+ */
+@Slf4j
+@Component
+public class MyKafkaMessageUpcaster {
+
+    // Feld-Indizes – Reihenfolge entspricht den Konstruktor-Parametern von MyKafkaMessage
+    static final List<String> FIELDS = List.of("id", "message", "version");
+    private static final int ID = 0;
+    private static final int MESSAGE = 1;
+    private static final int VERSION = 2;
+    private static final int SKIP = -1;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final boolean enabled;
+    private final Map<String, String> aliases;
+    private final String defaultId;
+    private final String defaultMessage;
+    private final int defaultVersion;
+
+    private final Map<Integer, Plan> plans = new ConcurrentHashMap<>();
+
+    public MyKafkaMessageUpcaster(UpcastProperties properties) {
+        this.enabled = properties.enabled();
+        this.aliases = properties.aliases();
+        aliases.forEach((alias, field) -> {
+            if (!FIELDS.contains(field)) {
+                throw new IllegalArgumentException("schema.upcast.aliases." + alias + ": unbekanntes DTO-Feld " + field);
+            }
+        });
+        this.defaultId = properties.defaults().get("id");
+        this.defaultMessage = properties.defaults().get("message");
+        String version = properties.defaults().get("version");
+        this.defaultVersion = version != null ? Integer.parseInt(version.trim()) : 0;
+    }
+
+    /**
+     * Prüft, ob der Consumer Records über den Upcaster binden soll.
+     *
+     * @return {@code true}, wenn {@code schema.upcast.enabled=true}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Liefert den gecachten Plan einer Schema-ID und leitet ihn beim ersten Zugriff aus dem registrierten Schema ab.
+     * Das Schema wird außerhalb der Map geladen, damit ein langsamer Registry-Aufruf keine anderen Schema-IDs
+     * blockiert; greifen mehrere Threads gleichzeitig zu, gewinnt der zuerst eingetragene Plan.
+     *
+     * @param schemaId die Schema-ID aus dem Wire-Format
+     * @param client   der Registry-Client zum Nachladen des Schemas
+     * @return der Plan
+     */
+    public Plan planFor(int schemaId, SchemaRegistryClient client) {
+        Plan plan = plans.get(schemaId);
+        if (plan != null) {
+            return plan;
+        }
+        ParsedSchema schema;
+        try {
+            schema = client.getSchemaById(schemaId);
+        } catch (IOException | RestClientException e) {
+            throw new SerializationException("Error retrieving JSON schema for id " + schemaId, e);
+        }
+        if (!(schema instanceof JsonSchema jsonSchema)) {
+            throw new SerializationException("Schema-ID " + schemaId + " ist kein JSON Schema");
+        }
+        Plan compiled = compile(schemaId, jsonSchema.toJsonNode());
+        Plan existing = plans.putIfAbsent(schemaId, compiled);
+        return existing != null ? existing : compiled;
+    }
+
+    /**
+     * Leitet den Plan für ein Objekt-Schema ab. Gleichnamige Felder haben Vorrang vor Aliasen; bildet mehr als ein
+     * Feld der Version auf dasselbe DTO-Feld ab, gewinnt das erste.
+     *
+     * @param schemaId die Schema-ID (nur für das Logging)
+     * @param schema   das registrierte JSON Schema
+     * @return der Plan
+     */
+    Plan compile(int schemaId, JsonNode schema) {
+        List<String> names = new ArrayList<>();
+        schema.path("properties").fieldNames().forEachRemaining(names::add);
+
+        String[] sources = names.toArray(String[]::new);
+        int[] targets = new int[sources.length];
+        int mapped = 0;
+        for (int i = 0; i < sources.length; i++) {
+            targets[i] = FIELDS.indexOf(sources[i]);
+            if (targets[i] != SKIP) {
+                mapped |= 1 << targets[i];
+            }
+        }
+        List<String> renamed = new ArrayList<>();
+        List<String> dropped = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++) {
+            if (targets[i] != SKIP) {
+                continue;
+            }
+            String alias = aliases.get(sources[i]);
+            int target = alias != null ? FIELDS.indexOf(alias) : SKIP;
+            if (target != SKIP && (mapped & (1 << target)) == 0) {
+                targets[i] = target;
+                mapped |= 1 << target;
+                renamed.add(sources[i] + "→" + alias);
+            } else {
+                dropped.add(sources[i]);
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (int target = 0; target < FIELDS.size(); target++) {
+            if ((mapped & (1 << target)) == 0) {
+                missing.add(FIELDS.get(target));
+            }
+        }
+        log.info("Upcasting-Plan für Schema-ID {}: umbenannt {}, verworfen {}, Standardwert für {}",
+                schemaId, renamed, dropped, missing);
+
+        // Nicht deklarierte DTO-Felder trotzdem lesen, falls das Schema zusätzliche Properties erlaubt
+        List<String> extra = missing.stream().filter(field -> !names.contains(field)).toList();
+        String[] allSources = Arrays.copyOf(sources, sources.length + extra.size());
+        int[] allTargets = Arrays.copyOf(targets, targets.length + extra.size());
+        for (int i = 0; i < extra.size(); i++) {
+            allSources[sources.length + i] = extra.get(i);
+            allTargets[sources.length + i] = FIELDS.indexOf(extra.get(i));
+        }
+        return new Plan(allSources, allTargets);
+    }
+
+    /**
+     * Liest einen validierten JSON-Payload gemäß Plan.
+     *
+     * @param plan   der Plan der Schema-ID des Payloads
+     * @param data   die Bytes
+     * @param offset Beginn des JSON im Array
+     * @param length Länge des JSON
+     * @return die Nachricht
+     */
+    public MyKafkaMessage read(Plan plan, byte[] data, int offset, int length) {
+        String id = null;
+        String message = null;
+        int version = 0;
+        int seen = 0;
+        try (JsonParser parser = jsonFactory.createParser(data, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SerializationException("Expected JSON object");
+            }
+            String name;
+            while ((name = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                int target = plan.target(name);
+                if (target == SKIP || token == JsonToken.VALUE_NULL) {
+                    parser.skipChildren();
+                    continue;
+                }
+                switch (target) {
+                    case ID -> id = text(parser, token, name);
+                    case MESSAGE -> message = text(parser, token, name);
+                    default -> version = integer(parser, token, name);
+                }
+                seen |= 1 << target;
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Error reading JSON message", e);
+        }
+        return new MyKafkaMessage(
+                (seen & (1 << ID)) != 0 ? id : defaultId,
+                (seen & (1 << MESSAGE)) != 0 ? message : defaultMessage,
+                (seen & (1 << VERSION)) != 0 ? version : defaultVersion);
+    }
+
+    private static String text(JsonParser parser, JsonToken token, String name) throws IOException {
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        throw new SerializationException("Field " + name + " cannot be mapped to a string: " + token);
+    }
+
+    private static int integer(JsonParser parser, JsonToken token, String name) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.parseInt(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                throw new SerializationException("Field " + name + " is not an integer: " + parser.getText(), e);
+            }
+        }
+        throw new SerializationException("Field " + name + " cannot be mapped to an integer: " + token);
+    }
+
+    /**
+     * Die kompilierte Feld-Abbildung einer Schema-Version.
+     */
+    public static final class Plan {
+        private final String[] sources;
+        private final int[] targets;
+
+        private Plan(String[] sources, int[] targets) {
+            this.sources = sources;
+            this.targets = targets;
+        }
+
+        private int target(String name) {
+            // Wenige Felder: lineare Suche statt Hash-Lookup; Jackson interniert Feldnamen sowohl im Schema als auch
+            // im Payload, daher greift meist schon der Identitätsvergleich in equals
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i].equals(name)) {
+                    return targets[i];
+                }
+            }
+            return SKIP;
+        }
+    }
+}
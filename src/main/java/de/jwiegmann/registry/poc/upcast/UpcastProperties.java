@@ -0,0 +1,22 @@
+package de.jwiegmann.registry.poc.upcast;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Upcasting älterer Schema-Versionen auf {@link de.jwiegmann.registry.poc.control.dto.MyKafkaMessage}
+ * ({@code schema.upcast.*}).
+ *
+ * @param enabled  ob der Consumer Records über kompilierte Feld-Abbildungen je Schema-ID bindet
+ * @param aliases  frühere Feldnamen → DTO-Feld, z. B. {@code msg: message}
+ * @param defaults DTO-Feld → Wert für Records, in denen das Feld fehlt oder {@code null} ist
+ */
+@ConfigurationProperties(prefix = "schema.upcast")
+public record UpcastProperties(boolean enabled, Map<String, String> aliases, Map<String, String> defaults) {
+
+    public UpcastProperties {
+        aliases = aliases != null ? Map.copyOf(aliases) : Map.of();
+        defaults = defaults != null ? Map.copyOf(defaults) : Map.of();
+    }
+}
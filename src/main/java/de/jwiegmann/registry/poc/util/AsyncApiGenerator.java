@@ -0,0 +1,389 @@
+package de.jwiegmann.registry.poc.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import de.jwiegmann.registry.poc.control.dto.AsyncApiDocument;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.dto.SchemaChangedEvent;
+import de.jwiegmann.registry.poc.encoding.EncodingProperties;
+import de.jwiegmann.registry.poc.encoding.MyKafkaMessageAvroMapper;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.KafkaListeners;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Headers;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Erzeugt das AsyncAPI-Dokument aus den {@link KafkaListener}-Topics der Anwendung und den zugehörigen Subjects
+ * der Schema Registry.
+ * <p>
+ * Je Listener-Topic wird ein Channel angelegt. Die Nachrichten des Channels ergeben sich aus dem Payload-Typ der
+ * Listener-Methode: das Subject kommt aus den Build-Zeit-Metadaten ({@link DtoSchemaMetadata#subjectOf}), das
+ * Schema als neueste Version aus der Registry. Nimmt der Consumer auch Avro an, kommt das Avro-Subject hinzu.
+ * <p>
+ * Das Dokument wird beim ersten Abruf einmal gebaut und im Speicher gehalten. Mit
+ * {@link de.jwiegmann.registry.poc.control.SchemaRegistryWatcher} wird es neu gebaut, sobald dieser eine Änderung
+ * eines dokumentierten Subjects meldet. Ohne Watcher wird beim ersten Abruf nach {@link #RECHECK_INTERVAL} die
+ * Versionsliste der dokumentierten Subjects abgefragt und nur bei einer neuen neuesten Version neu gebaut.
+ * Der ETag ist ein Hash des Inhalts und ändert sich daher nur, wenn sich das Dokument tatsächlich ändert.
+ * <p>
+ * War beim Bau ein Subject nicht abrufbar (Registry nicht erreichbar oder Subject noch nicht registriert), gilt das
+ * Dokument nur für {@link #RECHECK_INTERVAL} und wird danach beim nächsten Abruf neu gebaut – ein Ausfall der Registry
+ * beim ersten Abruf bleibt so nicht bis zum Neustart im Dokument stehen.
+ * <p>
+ * Ein Security-Schema wird nur dokumentiert, wenn der Broker per SASL oder SSL angesprochen wird; Typ und
+ * Mechanismus kommen aus {@code spring.kafka.security.protocol} und {@code spring.kafka.properties.sasl.mechanism}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AsyncApiGenerator {
+
+    private static final String JSON_SCHEMA_FORMAT = "application/schema+json;version=draft-07";
+    private static final String AVRO_SCHEMA_FORMAT = "application/vnd.apache.avro+json;version=1.9.0";
+
+    /**
+     * Gültigkeit eines unvollständigen Dokuments bzw. Abstand der Versionsprüfung eines vollständigen ohne Watcher.
+     */
+    static final Duration RECHECK_INTERVAL = Duration.ofSeconds(30);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final YAMLMapper YAML = new YAMLMapper(new YAMLFactory()
+            .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
+            .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES));
+
+    private final ApplicationContext applicationContext;
+    private final Environment environment;
+    private final SchemaRegistryClient schemaRegistryClient;
+    private final EncodingProperties encodingProperties;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${schema.registry.watch.enabled:false}")
+    private boolean watcherEnabled;
+
+    // Listener ändern sich zur Laufzeit nicht – einmal ermitteln
+    private volatile List<ListenerTopic> listenerTopics;
+    private volatile Set<String> documentedSubjects = Set.of();
+    private volatile Built document;
+
+    /**
+     * Gibt das aktuelle Dokument zurück und baut es beim ersten Aufruf, nach Ablauf eines unvollständigen Dokuments
+     * bzw. bei einer neuen Version eines dokumentierten Subjects.
+     *
+     * @return das Dokument samt ETag
+     */
+    public AsyncApiDocument getDocument() {
+        Built current = document;
+        if (current == null || current.due()) {
+            synchronized (this) {
+                current = document;
+                if (current == null || current.due() && !(current.complete() && unchanged(current))) {
+                    current = build();
+                } else if (current.due()) {
+                    current = current.recheckAt(System.nanoTime() + RECHECK_INTERVAL.toNanos());
+                }
+                document = current;
+            }
+        }
+        return current.document();
+    }
+
+    /**
+     * Prüft, ob die neueste Version jedes dokumentierten Subjects noch der im Dokument entspricht. Die Versionsliste
+     * ist ein einzelner, nicht gecachter Registry-Aufruf je Subject; ist die Registry nicht erreichbar, bleibt das
+     * Dokument gültig.
+     */
+    private boolean unchanged(Built current) {
+        for (Map.Entry<String, Integer> documented : current.versions().entrySet()) {
+            try {
+                if (latestVersion(documented.getKey()) != documented.getValue()) {
+                    return false;
+                }
+            } catch (Exception e) {
+                log.debug("Versionen von {} für AsyncAPI nicht abrufbar: {}", documented.getKey(), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Baut das Dokument neu, wenn sich ein dokumentiertes Subject geändert hat. Schlägt der Neubau fehl, bleibt das
+     * bisherige Dokument gültig.
+     *
+     * @param change die vom {@code SchemaRegistryWatcher} gemeldete Änderung
+     */
+    @EventListener
+    public void onSchemaChanged(SchemaChangedEvent change) {
+        if (document == null || !documentedSubjects.contains(change.subject())) {
+            return;
+        }
+        try {
+            Built rebuilt = build();
+            synchronized (this) {
+                document = rebuilt;
+            }
+        } catch (RuntimeException e) {
+            log.warn("AsyncAPI-Dokument konnte nach Änderung von {} nicht neu gebaut werden: {}",
+                    change.subject(), e.getMessage());
+        }
+    }
+
+    private Built build() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("asyncapi", "2.6.0");
+        ObjectNode info = root.putObject("info");
+        info.put("title", "Kafka Schema Showcase");
+        info.put("version", "1.0.0");
+        info.put("description", "Aus den Kafka-Listenern und der Schema Registry generiert.");
+
+        String securityProtocol = environment.getProperty("spring.kafka.security.protocol", "PLAINTEXT");
+        ObjectNode server = root.putObject("servers").putObject("kafka-broker");
+        server.put("url", bootstrapServers);
+        server.put("protocol", "PLAINTEXT".equalsIgnoreCase(securityProtocol) ? "kafka" : "kafka-secure");
+
+        ObjectNode channels = root.putObject("channels");
+        ObjectNode components = root.putObject("components");
+        ObjectNode messages = components.putObject("messages");
+        Map<String, Integer> versions = new TreeMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+
+        Map<String, List<ListenerTopic>> byTopic = new TreeMap<>();
+        for (ListenerTopic listener : listenerTopics()) {
+            byTopic.computeIfAbsent(listener.topic(), t -> new ArrayList<>()).add(listener);
+        }
+        byTopic.forEach((topic, listeners) -> {
+            ObjectNode channel = channels.putObject(topic);
+            channel.put("description", "Topic für Nachrichten mit in der Schema Registry verwalteten Schemas");
+            channel.putObject("bindings").putObject("kafka").put("topic", topic).put("bindingVersion", "0.4.0");
+
+            ObjectNode subscribe = channel.putObject("subscribe");
+            subscribe.put("summary", "Empfängt validierte Nachrichten");
+            ArrayNode groups = subscribe.putObject("bindings").putObject("kafka")
+                    .put("bindingVersion", "0.4.0")
+                    .putObject("groupId").put("type", "string").putArray("enum");
+            listeners.stream().map(ListenerTopic::group).filter(StringUtils::hasText).distinct().forEach(groups::add);
+
+            List<String> refs = new ArrayList<>();
+            for (ListenerTopic listener : listeners) {
+                for (String subject : subjectsFor(listener.payloadType())) {
+                    String name = messageName(subject);
+                    if (!messages.has(name)) {
+                        messages.set(name, message(name, subject, versions, missing));
+                    }
+                    refs.add("#/components/messages/" + name);
+                }
+            }
+            ObjectNode message = subscribe.putObject("message");
+            if (refs.size() == 1) {
+                message.put("$ref", refs.get(0));
+            } else {
+                ArrayNode oneOf = message.putArray("oneOf");
+                refs.stream().distinct().forEach(ref -> oneOf.addObject().put("$ref", ref));
+            }
+        });
+
+        String scheme = securityScheme(securityProtocol);
+        if (scheme != null) {
+            components.putObject("securitySchemes").putObject("kafka")
+                    .put("type", scheme)
+                    .put("description", "Aus spring.kafka.security.protocol=" + securityProtocol);
+            server.putArray("security").addObject().putArray("kafka");
+        }
+
+        try {
+            byte[] yaml = YAML.writeValueAsBytes(root);
+            String etag = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(yaml), 0, 16) + "\"";
+            Set<String> subjects = new LinkedHashSet<>(versions.keySet());
+            subjects.addAll(missing);
+            documentedSubjects = Set.copyOf(subjects);
+            AsyncApiDocument built = new AsyncApiDocument(yaml, etag);
+            if (missing.isEmpty()) {
+                log.info("AsyncAPI-Dokument gebaut: {} Channels, Subjects {}, ETag {}", byTopic.size(), versions, etag);
+                long recheckAt = watcherEnabled ? Long.MAX_VALUE : System.nanoTime() + RECHECK_INTERVAL.toNanos();
+                return new Built(built, Map.copyOf(versions), true, recheckAt);
+            }
+            log.warn("AsyncAPI-Dokument unvollständig gebaut, Subjects {} fehlen; Neubau frühestens in {}",
+                    missing, RECHECK_INTERVAL);
+            return new Built(built, Map.copyOf(versions), false, System.nanoTime() + RECHECK_INTERVAL.toNanos());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("AsyncAPI-Dokument konnte nicht erzeugt werden", e);
+        }
+    }
+
+    private List<String> subjectsFor(Class<?> payloadType) {
+        List<String> subjects = new ArrayList<>();
+        subjects.add(DtoSchemaMetadata.subjectOf(payloadType));
+        if (encodingProperties.consumesAvro() && payloadType == MyKafkaMessage.class) {
+            subjects.add(MyKafkaMessageAvroMapper.SCHEMA.getFullName());
+        }
+        return subjects;
+    }
+
+    /**
+     * Der AsyncAPI-2.6-Typ des Security-Schemas zum Kafka-Sicherheitsprotokoll, oder {@code null} ohne
+     * Authentifizierung.
+     */
+    private String securityScheme(String securityProtocol) {
+        String protocol = securityProtocol.toUpperCase(Locale.ROOT);
+        if (protocol.startsWith("SASL")) {
+            String mechanism = environment.getProperty("spring.kafka.properties.sasl.mechanism", "GSSAPI");
+            return switch (mechanism.toUpperCase(Locale.ROOT)) {
+                case "PLAIN" -> "plain";
+                case "SCRAM-SHA-256" -> "scramSha256";
+                case "SCRAM-SHA-512" -> "scramSha512";
+                case "GSSAPI" -> "gssapi";
+                default -> "userPassword";
+            };
+        }
+        return "SSL".equals(protocol) ? "X509" : null;
+    }
+
+    private ObjectNode message(String name, String subject, Map<String, Integer> versions, Set<String> missing) {
+        ObjectNode message = MAPPER.createObjectNode();
+        message.put("name", name);
+        message.put("title", subject);
+        try {
+            // Über die ungecachte Versionsliste, damit ein veralteter "latest"-Cache des Clients nicht greift
+            SchemaMetadata latest = schemaRegistryClient.getSchemaMetadata(subject, latestVersion(subject));
+            boolean avro = AvroSchema.TYPE.equals(latest.getSchemaType());
+            message.put("contentType", avro ? "avro/binary" : "application/json");
+            message.put("schemaFormat", avro ? AVRO_SCHEMA_FORMAT : JSON_SCHEMA_FORMAT);
+            message.set("payload", MAPPER.readTree(latest.getSchema()));
+            message.putObject("bindings").putObject("kafka")
+                    .put("schemaIdLocation", "payload")
+                    .put("schemaIdPayloadEncoding", "confluent")
+                    .put("schemaLookupStrategy", "RecordNameStrategy")
+                    .put("bindingVersion", "0.4.0");
+            message.putObject("x-schema-registry")
+                    .put("subject", subject)
+                    .put("version", latest.getVersion())
+                    .put("schemaId", latest.getId());
+            versions.put(subject, latest.getVersion());
+        } catch (Exception e) {
+            // Subject (noch) nicht registriert: Channel trotzdem dokumentieren
+            log.warn("Subject {} für AsyncAPI nicht abrufbar: {}", subject, e.getMessage());
+            message.put("summary", "Schema nicht in der Registry gefunden");
+            missing.add(subject);
+        }
+        return message;
+    }
+
+    private int latestVersion(String subject) throws Exception {
+        return Collections.max(schemaRegistryClient.getAllVersions(subject));
+    }
+
+    private static String messageName(String subject) {
+        String simple = subject.substring(subject.lastIndexOf('.') + 1);
+        return subject.equals(MyKafkaMessageAvroMapper.SCHEMA.getFullName()) ? simple + "Avro" : simple;
+    }
+
+    private List<ListenerTopic> listenerTopics() {
+        List<ListenerTopic> topics = listenerTopics;
+        if (topics == null) {
+            topics = scanListeners();
+            listenerTopics = topics;
+        }
+        return topics;
+    }
+
+    private List<ListenerTopic> scanListeners() {
+        List<ListenerTopic> topics = new ArrayList<>();
+        for (String beanName : applicationContext.getBeanDefinitionNames()) {
+            Class<?> type = applicationContext.getType(beanName, false);
+            if (type == null) {
+                continue;
+            }
+            ReflectionUtils.doWithMethods(ClassUtils.getUserClass(type), method -> {
+                Set<KafkaListener> listeners = AnnotatedElementUtils.findMergedRepeatableAnnotations(
+                        method, KafkaListener.class, KafkaListeners.class);
+                for (KafkaListener listener : listeners) {
+                    Class<?> payloadType = payloadType(method);
+                    String group = environment.resolvePlaceholders(listener.groupId());
+                    for (String topic : listener.topics()) {
+                        topics.add(new ListenerTopic(environment.resolvePlaceholders(topic), group, payloadType));
+                    }
+                }
+            }, ReflectionUtils.USER_DECLARED_METHODS);
+        }
+        return List.copyOf(topics);
+    }
+
+    /**
+     * Ermittelt den Payload-Typ einer Listener-Methode: der erste Parameter ohne {@code @Header}, bei
+     * {@link ConsumerRecord} bzw. {@link Message} dessen Wert-Typ.
+     */
+    static Class<?> payloadType(Method method) {
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            Parameter parameter = method.getParameters()[i];
+            if (parameter.isAnnotationPresent(Header.class) || parameter.isAnnotationPresent(Headers.class)) {
+                continue;
+            }
+            ResolvableType type = ResolvableType.forMethodParameter(method, i);
+            if (ConsumerRecord.class.isAssignableFrom(type.toClass())) {
+                return type.getGeneric(1).resolve(Object.class);
+            }
+            if (Message.class.isAssignableFrom(type.toClass())) {
+                return type.getGeneric(0).resolve(Object.class);
+            }
+            return type.toClass();
+        }
+        return Object.class;
+    }
+
+    /**
+     * Gebautes Dokument samt dokumentierter Subject-Versionen und Zeitpunkt ({@link System#nanoTime()}) des nächsten
+     * Neubaus (unvollständig) bzw. der nächsten Versionsprüfung (vollständig, ohne Watcher).
+     */
+    private record Built(AsyncApiDocument document, Map<String, Integer> versions, boolean complete, long dueAtNanos) {
+
+        boolean due() {
+            return dueAtNanos != Long.MAX_VALUE && System.nanoTime() - dueAtNanos >= 0;
+        }
+
+        Built recheckAt(long nanos) {
+            return new Built(document, versions, complete, nanos);
+        }
+    }
+
+    private record ListenerTopic(String topic, String group, Class<?> payloadType) {
+    }
+}
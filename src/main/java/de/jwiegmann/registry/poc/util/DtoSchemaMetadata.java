@@ -0,0 +1,58 @@
+package de.jwiegmann.registry.poc.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Zur Build-Zeit erzeugte Schema-Metadaten eines DTOs (siehe {@link SchemaMetadataGenerator}).
+ * <p>
+ * Liegt als {@code META-INF/schema-metadata/<Klassenname>.json} im Klassenpfad, damit zur Laufzeit weder das
+ * JSON Schema reflektiv aus dem DTO erzeugt noch die Registry nach dem Subject gefragt werden muss.
+ *
+ * @param type       der voll qualifizierte Klassenname des DTOs
+ * @param subject    das Subject in der Registry (Titel des Schemas, {@code RecordNameStrategy})
+ * @param schemaType der Schema-Typ, z. B. {@code JSON}
+ * @param schema     das generierte Schema
+ */
+public record DtoSchemaMetadata(String type, String subject, String schemaType, String schema) {
+
+    /**
+     * Verzeichnis der Metadaten im Klassenpfad.
+     */
+    public static final String RESOURCE_DIRECTORY = "META-INF/schema-metadata/";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Lädt die Metadaten eines DTOs aus dem Klassenpfad.
+     *
+     * @param type die DTO-Klasse
+     * @return die Metadaten, oder leer, wenn für die Klasse keine erzeugt wurden
+     */
+    public static Optional<DtoSchemaMetadata> forClass(Class<?> type) {
+        String resource = resourceName(type.getName());
+        try (InputStream in = DtoSchemaMetadata.class.getClassLoader().getResourceAsStream(resource)) {
+            return in == null ? Optional.empty() : Optional.of(MAPPER.readValue(in, DtoSchemaMetadata.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Schema-Metadaten " + resource + " nicht lesbar", e);
+        }
+    }
+
+    /**
+     * Das Subject eines DTOs – aus den Build-Zeit-Metadaten, sonst der Klassenname.
+     *
+     * @param type die DTO-Klasse
+     * @return das Subject
+     */
+    public static String subjectOf(Class<?> type) {
+        return forClass(type).map(DtoSchemaMetadata::subject).orElse(type.getName());
+    }
+
+    static String resourceName(String type) {
+        return RESOURCE_DIRECTORY + type + ".json";
+    }
+}
@@ -2,6 +2,7 @@ package de.jwiegmann.registry.poc.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.jwiegmann.registry.poc.control.dto.SchemaChangedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -12,6 +13,7 @@ import org.springframework.web.client.RestTemplate;
 import java.io.File;
 import java.io.FileWriter;
 import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Component
@@ -29,10 +31,34 @@ public class SchemaDownloader {
     @Value("${schema.target.filename:MyKafkaMessage.json}")
     private String targetFilename;
 
+    @Value("${schema.startup.optimized:false}")
+    private boolean startupOptimized;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final RestTemplate restTemplate = new RestTemplate();
 
     @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (startupOptimized) {
+            // Der Download ist nur für die Doku nötig und soll den Start nicht blockieren
+            CompletableFuture.runAsync(this::downloadSchema);
+        } else {
+            downloadSchema();
+        }
+    }
+
+    /**
+     * Lädt das Schema erneut, sobald der {@code SchemaRegistryWatcher} eine neue Version des Subjects meldet.
+     *
+     * @param change die gemeldete Änderung
+     */
+    @EventListener
+    public void onSchemaChanged(SchemaChangedEvent change) {
+        if (subject.equals(change.subject()) && !change.deleted()) {
+            downloadSchema();
+        }
+    }
+
     public void downloadSchema() {
         log.info("Starte REST-Download für Subject: {}", subject);
 
@@ -0,0 +1,49 @@
+package de.jwiegmann.registry.poc.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Erzeugt zur Build-Zeit die {@link DtoSchemaMetadata} der übergebenen DTO-Klassen.
+ * <p>
+ * Läuft im Maven-Profil {@code schema-metadata} über das {@code exec-maven-plugin} in der Phase
+ * {@code process-classes} und schreibt nach {@code target/classes/META-INF/schema-metadata}. Ohne das Profil fehlen
+ * die Metadaten, und das Subject wird wie bisher aus dem Klassennamen abgeleitet. Verwendet wird derselbe Generator wie im
+ * {@code KafkaJsonSchemaSerializer}; der DTO-Prototyp wird von Jackson aus {@code {}} erzeugt.
+ * <pre>
+ * SchemaMetadataGenerator &lt;Zielverzeichnis&gt; &lt;DTO-Klasse&gt;...
+ * </pre>
+ */
+@Slf4j
+public final class SchemaMetadataGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SchemaMetadataGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Aufruf: SchemaMetadataGenerator <Zielverzeichnis> <DTO-Klasse>...");
+        }
+        Path target = Path.of(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            DtoSchemaMetadata metadata = generate(Class.forName(args[i]));
+            Path file = target.resolve(DtoSchemaMetadata.resourceName(metadata.type()));
+            Files.createDirectories(file.getParent());
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), metadata);
+            log.info("Schema-Metadaten für {} geschrieben: {}", metadata.subject(), file);
+        }
+    }
+
+    static DtoSchemaMetadata generate(Class<?> type) throws Exception {
+        Object prototype = MAPPER.readValue("{}", type);
+        JsonSchema schema = JsonSchemaUtils.getSchema(prototype);
+        return new DtoSchemaMetadata(type.getName(), schema.name(), schema.schemaType(), schema.canonicalString());
+    }
+}
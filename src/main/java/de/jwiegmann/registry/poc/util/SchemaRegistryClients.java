@@ -0,0 +1,38 @@
+package de.jwiegmann.registry.poc.util;
+
+import io.confluent.kafka.schemaregistry.SchemaProvider;
+import io.confluent.kafka.schemaregistry.avro.AvroSchemaProvider;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaProvider;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Erzeugt {@link SchemaRegistryClient}-Instanzen, die JSON-Schema- und Avro-Schemas parsen können.
+ * <p>
+ * Ohne explizite Provider kennt der {@link CachedSchemaRegistryClient} nur Avro; {@code getSchemaById} scheitert
+ * dann für jede JSON-Schema-ID. Alle Clients, die an Serializer und Deserializer weitergereicht werden, müssen
+ * daher hierüber erzeugt werden.
+ * <p>
+ * Die Clients sind {@link SubjectScopedSchemaRegistryClient}s, deren neueste Version je Subject gezielt
+ * aktualisiert werden kann.
+ */
+public final class SchemaRegistryClients {
+
+    private SchemaRegistryClients() {
+    }
+
+    /**
+     * Erzeugt einen Client mit JSON-Schema- und Avro-Provider.
+     *
+     * @param url           die URL der Registry
+     * @param cacheCapacity die maximale Anzahl gecachter Schemas je Subject
+     * @param configs       die Client-Konfiguration (z. B. Authentifizierung), wird auch an die Provider gereicht
+     * @return der neue Client
+     */
+    public static SubjectScopedSchemaRegistryClient create(String url, int cacheCapacity, Map<String, ?> configs) {
+        List<SchemaProvider> providers = List.of(new JsonSchemaProvider(), new AvroSchemaProvider());
+        return new SubjectScopedSchemaRegistryClient(url, cacheCapacity, providers, configs);
+    }
+}
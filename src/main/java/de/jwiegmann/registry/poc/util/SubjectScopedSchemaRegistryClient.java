@@ -0,0 +1,76 @@
+package de.jwiegmann.registry.poc.util;
+
+import io.confluent.kafka.schemaregistry.SchemaProvider;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CachedSchemaRegistryClient} mit eigenem, je Subject invalidierbarem Cache für die neueste Version.
+ * <p>
+ * Der Cache des Basis-Clients für {@code versions/latest} lässt sich nur als Ganzes per {@code reset()} verwerfen –
+ * das leert auch die unveränderlichen ID-Caches, die danach jeder Deserializer erneut per REST laden muss. Hier ist
+ * dieser Cache deshalb abgeschaltet ({@code latest.cache.ttl.sec=0}) und durch eine Map ersetzt, die
+ * {@link #refresh(String)} gezielt für ein Subject aktualisiert.
+ */
+public class SubjectScopedSchemaRegistryClient extends CachedSchemaRegistryClient {
+
+    private final Map<String, SchemaMetadata> latest = new ConcurrentHashMap<>();
+
+    public SubjectScopedSchemaRegistryClient(String url, int cacheCapacity, List<SchemaProvider> providers,
+                                             Map<String, ?> configs) {
+        super(url, cacheCapacity, providers, withoutLatestCache(configs));
+    }
+
+    @Override
+    public SchemaMetadata getLatestSchemaMetadata(String subject) throws IOException, RestClientException {
+        SchemaMetadata cached = latest.get(subject);
+        if (cached != null) {
+            return cached;
+        }
+        SchemaMetadata loaded = super.getLatestSchemaMetadata(subject);
+        // Ein parallel per refresh() geladener neuerer Stand darf nicht überschrieben werden
+        return latest.merge(subject, loaded,
+                (current, candidate) -> candidate.getVersion() > current.getVersion() ? candidate : current);
+    }
+
+    /**
+     * Lädt die neueste Version eines Subjects neu und ersetzt den gecachten Eintrag, auch wenn die Version dabei
+     * kleiner wird (z. B. nach dem Löschen der bisher neuesten). Existiert das Subject nicht mehr, wird der Eintrag
+     * nur verworfen.
+     *
+     * @param subject das Subject
+     */
+    public void refresh(String subject) {
+        try {
+            latest.put(subject, super.getLatestSchemaMetadata(subject));
+        } catch (IOException | RestClientException e) {
+            latest.remove(subject);
+        }
+    }
+
+    /**
+     * Verwirft die neueste Version aller Subjects; die ID-Caches bleiben erhalten.
+     */
+    public void invalidateLatest() {
+        latest.clear();
+    }
+
+    @Override
+    public void reset() {
+        latest.clear();
+        super.reset();
+    }
+
+    private static Map<String, ?> withoutLatestCache(Map<String, ?> configs) {
+        Map<String, Object> copy = new HashMap<>(configs);
+        copy.put("latest.cache.ttl.sec", 0);
+        return copy;
+    }
+}
@@ -0,0 +1,257 @@
+package de.jwiegmann.registry.poc.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Aus einem Objekt-Schema abgeleitete Einschränkungen für eine feste Liste von DTO-Feldern.
+ * <p>
+ * Ermöglicht die Validierung direkt an den Feldwerten eines DTOs, ohne vorher JSON oder einen
+ * {@code JsonNode}-Baum zu erzeugen. Die Felder werden über ihren Index in der beim Kompilieren
+ * übergebenen Feldliste angesprochen, damit im Hot-Path keine Map-Zugriffe nötig sind.
+ * <p>
+ * Unterstützt werden je Feld {@code type} bzw. Typ-Alternativen per {@code oneOf}/{@code anyOf},
+ * {@code minLength}/{@code maxLength} und {@code minimum}/{@code maximum} (auch exklusiv, nur in der
+ * numerischen Form ab Draft 06; die boolesche Draft-04-Form gilt als nicht unterstützt).
+ * Passt das Schema nicht zur Feldliste – Pflichtfeld ohne DTO-Feld, DTO-Feld, das bei
+ * {@code additionalProperties: false} nicht erlaubt ist, oder nicht unterstützte Schlüsselwörter –
+ * liefert {@link #compile} ein leeres Ergebnis.
+ */
+public final class FieldConstraints {
+
+    private static final Set<String> ANNOTATIONS = Set.of(
+            "$schema", "$id", "$comment", "title", "description", "default", "examples", "readOnly", "writeOnly");
+    private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final Set<String> OBJECT_KEYWORDS = Set.of("type", "properties", "required", "additionalProperties");
+
+    private final List<String> fields;
+    private final Field[] constraints;
+
+    private FieldConstraints(List<String> fields, Field[] constraints) {
+        this.fields = fields;
+        this.constraints = constraints;
+    }
+
+    /**
+     * Leitet die Einschränkungen für die angegebenen Felder aus einem Objekt-Schema ab.
+     *
+     * @param schema das JSON Schema des DTOs
+     * @param fields die Feldnamen in der Reihenfolge, in der sie später per Index geprüft werden
+     * @return die Einschränkungen, oder leer, wenn das Schema nicht direkt auf die Felder abbildbar ist
+     */
+    public static Optional<FieldConstraints> compile(JsonNode schema, List<String> fields) {
+        Iterator<String> keywords = schema.fieldNames();
+        while (keywords.hasNext()) {
+            String keyword = keywords.next();
+            if (!OBJECT_KEYWORDS.contains(keyword) && !ANNOTATIONS.contains(keyword)) {
+                return Optional.empty();
+            }
+        }
+        if (schema.has("type") && !"object".equals(schema.get("type").asText())) {
+            return Optional.empty();
+        }
+
+        JsonNode properties = schema.path("properties");
+        JsonNode additional = schema.path("additionalProperties");
+        boolean additionalAllowed = additional.isMissingNode() || (additional.isBoolean() && additional.booleanValue());
+        if (!additional.isMissingNode() && !additional.isBoolean()) {
+            return Optional.empty();
+        }
+
+        Set<String> required = new HashSet<>();
+        schema.path("required").forEach(r -> required.add(r.asText()));
+        if (!fields.containsAll(required)) {
+            return Optional.empty();
+        }
+
+        Field[] constraints = new Field[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            String name = fields.get(i);
+            JsonNode property = properties.get(name);
+            if (property == null) {
+                if (!additionalAllowed) {
+                    return Optional.empty();
+                }
+                constraints[i] = new Field(name);
+                continue;
+            }
+            Field field = compileField(name, property);
+            if (field == null) {
+                return Optional.empty();
+            }
+            constraints[i] = field;
+        }
+        return Optional.of(new FieldConstraints(List.copyOf(fields), constraints));
+    }
+
+    /**
+     * Prüft einen String-Wert (oder {@code null}) für das Feld mit dem angegebenen Index.
+     *
+     * @throws SerializationException wenn der Wert das Schema verletzt
+     */
+    public void checkString(int index, String value) {
+        Field field = constraints[index];
+        if (value == null) {
+            field.checkNull();
+            return;
+        }
+        field.requireType(Field.STRING, "string");
+        if (field.minLength > 0 || field.maxLength < Integer.MAX_VALUE) {
+            int length = value.codePointCount(0, value.length());
+            if (length < field.minLength || length > field.maxLength) {
+                throw field.violation("minLength/maxLength", "string length " + length + " out of bounds");
+            }
+        }
+    }
+
+    /**
+     * Prüft einen ganzzahligen Wert für das Feld mit dem angegebenen Index.
+     *
+     * @throws SerializationException wenn der Wert das Schema verletzt
+     */
+    public void checkInteger(int index, long value) {
+        Field field = constraints[index];
+        field.requireType(Field.INTEGER | Field.NUMBER, "integer");
+        if (value < field.minimum || value > field.maximum) {
+            throw field.violation("minimum/maximum", value + " is not within [" + field.minimum + ", " + field.maximum + "]");
+        }
+    }
+
+    /**
+     * Die Feldnamen in Index-Reihenfolge.
+     *
+     * @return die Feldnamen
+     */
+    public List<String> fields() {
+        return fields;
+    }
+
+    private static Field compileField(String name, JsonNode property) {
+        Field field = new Field(name);
+        Iterator<Map.Entry<String, JsonNode>> entries = property.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            JsonNode value = entry.getValue();
+            switch (entry.getKey()) {
+                case "type" -> field.types &= types(value);
+                case "oneOf", "anyOf" -> {
+                    int union = 0;
+                    for (JsonNode branch : value) {
+                        Iterator<String> keys = branch.fieldNames();
+                        while (keys.hasNext()) {
+                            String key = keys.next();
+                            if (!key.equals("type") && !ANNOTATIONS.contains(key)) {
+                                return null;
+                            }
+                        }
+                        int branchTypes = types(branch.path("type"));
+                        if (branchTypes == 0 || (union & branchTypes) != 0) {
+                            return null;
+                        }
+                        union |= branchTypes;
+                    }
+                    field.types &= union;
+                }
+                case "minLength" -> field.minLength = value.intValue();
+                case "maxLength" -> field.maxLength = value.intValue();
+                case "minimum", "maximum", "exclusiveMinimum", "exclusiveMaximum" -> {
+                    // Draft-04-Form ("exclusiveMinimum": true) bezieht sich auf minimum – nicht unterstützt
+                    if (!value.isNumber()) {
+                        return null;
+                    }
+                    // Ganzzahlige Grenze exakt berechnen, erst danach auf den long-Bereich begrenzen
+                    BigDecimal bound = value.decimalValue();
+                    BigDecimal limit = switch (entry.getKey()) {
+                        case "minimum" -> bound.setScale(0, RoundingMode.CEILING);
+                        case "maximum" -> bound.setScale(0, RoundingMode.FLOOR);
+                        case "exclusiveMinimum" -> bound.setScale(0, RoundingMode.FLOOR).add(BigDecimal.ONE);
+                        default -> bound.setScale(0, RoundingMode.CEILING).subtract(BigDecimal.ONE);
+                    };
+                    // Mehrere Grenzen in beliebiger Reihenfolge: die engere gilt
+                    if (entry.getKey().endsWith("inimum")) {
+                        if (limit.compareTo(LONG_MAX) > 0) {
+                            return null; // kein long-Wert erfüllt die Grenze
+                        }
+                        field.minimum = Math.max(field.minimum, clampToLong(limit));
+                    } else {
+                        if (limit.compareTo(LONG_MIN) < 0) {
+                            return null;
+                        }
+                        field.maximum = Math.min(field.maximum, clampToLong(limit));
+                    }
+                }
+                default -> {
+                    if (!ANNOTATIONS.contains(entry.getKey())) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return field.types == 0 ? null : field;
+    }
+
+    private static int types(JsonNode type) {
+        if (type.isArray()) {
+            int types = 0;
+            for (JsonNode t : type) {
+                types |= types(t);
+            }
+            return types;
+        }
+        return switch (type.asText()) {
+            case "null" -> Field.NULL;
+            case "string" -> Field.STRING;
+            case "integer" -> Field.INTEGER;
+            case "number" -> Field.NUMBER;
+            default -> 0;
+        };
+    }
+
+    private static long clampToLong(BigDecimal value) {
+        // longValue() liefe bei Grenzen wie 1e20 still über
+        return value.max(LONG_MIN).min(LONG_MAX).longValueExact();
+    }
+
+    private static final class Field {
+        private static final int NULL = 1;
+        private static final int STRING = 1 << 1;
+        private static final int INTEGER = 1 << 2;
+        private static final int NUMBER = 1 << 3;
+
+        private final String name;
+        private int types = NULL | STRING | INTEGER | NUMBER;
+        private int minLength;
+        private int maxLength = Integer.MAX_VALUE;
+        private long minimum = Long.MIN_VALUE;
+        private long maximum = Long.MAX_VALUE;
+
+        private Field(String name) {
+            this.name = name;
+        }
+
+        private void checkNull() {
+            // Felder werden immer geschrieben; ein explizites null erfüllt "required", muss aber als Typ erlaubt sein
+            requireType(NULL, "null");
+        }
+
+        private void requireType(int type, String actual) {
+            if ((types & type) == 0) {
+                throw violation("type", "expected another type, found: " + actual);
+            }
+        }
+
+        private StreamingValidationException violation(String keyword, String message) {
+            return new StreamingValidationException("#/" + name, keyword, message);
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package de.jwiegmann.registry.poc.validation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Validiert JSON-Payloads token-weise gegen ein vorab kompiliertes JSON Schema und bricht bei der ersten
+ * Verletzung ab – ohne den Payload vorher in einen Baum zu parsen.
+ * <p>
+ * Unterstützt wird die Teilmenge von Draft-07, die für DTO-Schemas wie {@code MyKafkaMessage} typisch ist:
+ * {@code type}, {@code properties}, {@code required}, {@code additionalProperties}, {@code items},
+ * {@code minimum}/{@code maximum} (auch exklusiv, in der numerischen Form ab Draft 06),
+ * {@code minLength}/{@code maxLength}, {@code minItems}/{@code maxItems} sowie {@code oneOf}/{@code anyOf}, deren
+ * Zweige reine Typ-Alternativen sind.
+ * Enthält ein Schema andere Schlüsselwörter, liefert {@link #compile} ein leeres Ergebnis und der Aufrufer
+ * fällt auf die baumbasierte Validierung zurück.
+ * <p>
+ * Instanzen sind unveränderlich und können von beliebig vielen Threads gleichzeitig genutzt werden.
+ */
+public final class StreamingJsonSchemaValidator {
+
+    // Schlüsselwörter ohne Einfluss auf die Validierung
+    private static final Set<String> ANNOTATIONS = Set.of(
+            "$schema", "$id", "$comment", "title", "description", "default", "examples", "readOnly", "writeOnly");
+
+    private static final int NULL = 1;
+    private static final int BOOLEAN = 1 << 1;
+    private static final int INTEGER = 1 << 2;
+    private static final int NUMBER = 1 << 3;
+    private static final int STRING = 1 << 4;
+    private static final int OBJECT = 1 << 5;
+    private static final int ARRAY = 1 << 6;
+    private static final int ANY = NULL | BOOLEAN | INTEGER | NUMBER | STRING | OBJECT | ARRAY;
+
+    private final Node root;
+    private final StreamingValidationLimits limits;
+    private final JsonFactory jsonFactory;
+
+    private StreamingJsonSchemaValidator(Node root, StreamingValidationLimits limits) {
+        this.root = root;
+        this.limits = limits;
+        // Jackson setzt Tiefe und Stringlänge auch für übersprungene Teilbäume durch
+        this.jsonFactory = limits.jsonFactory();
+    }
+
+    /**
+     * Kompiliert ein JSON Schema in einen Streaming-Validator.
+     *
+     * @param schema das JSON Schema
+     * @param limits die durchzusetzenden Grenzen
+     * @return der Validator, oder leer, wenn das Schema nicht unterstützte Schlüsselwörter enthält
+     */
+    public static Optional<StreamingJsonSchemaValidator> compile(JsonNode schema, StreamingValidationLimits limits) {
+        try {
+            return Optional.of(new StreamingJsonSchemaValidator(compileNode(schema), limits));
+        } catch (UnsupportedSchemaException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Validiert einen Payload-Ausschnitt.
+     *
+     * @param data   die Bytes
+     * @param offset Beginn des JSON-Dokuments
+     * @param length Länge des JSON-Dokuments
+     * @throws StreamingValidationException bei der ersten Schema- oder Limit-Verletzung
+     * @throws SerializationException       wenn der Payload kein gültiges JSON ist
+     */
+    public void validate(byte[] data, int offset, int length) {
+        if (length > limits.maxPayloadBytes()) {
+            throw new StreamingValidationException("#", "maxPayloadBytes",
+                    "payload of " + length + " bytes exceeds limit of " + limits.maxPayloadBytes());
+        }
+
+        Path path = new Path();
+        try (JsonParser parser = jsonFactory.createParser(data, offset, length)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new StreamingValidationException("#", "type", "empty payload");
+            }
+            validateValue(parser, token, root, path, 1);
+        } catch (StreamConstraintsException e) {
+            throw new StreamingValidationException(path.pointer(), "limits", e.getOriginalMessage());
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Malformed JSON payload at " + path.pointer(), e);
+        } catch (IOException e) {
+            throw new SerializationException("Unable to read JSON payload", e);
+        }
+    }
+
+    private void validateValue(JsonParser parser, JsonToken token, Node node, Path path, int depth) throws IOException {
+        switch (token) {
+            case START_OBJECT -> validateObject(parser, node, path, depth);
+            case START_ARRAY -> validateArray(parser, node, path, depth);
+            case VALUE_STRING -> validateString(parser, node, path);
+            case VALUE_NUMBER_INT -> validateNumber(parser, node, path, true);
+            case VALUE_NUMBER_FLOAT -> validateNumber(parser, node, path, false);
+            case VALUE_TRUE, VALUE_FALSE -> requireType(node, BOOLEAN, path, "boolean");
+            case VALUE_NULL -> requireType(node, NULL, path, "null");
+            default -> throw new StreamingValidationException(path.pointer(), "type", "unexpected token " + token);
+        }
+    }
+
+    private void validateObject(JsonParser parser, Node node, Path path, int depth) throws IOException {
+        requireType(node, OBJECT, path, "object");
+        checkDepth(depth, path);
+
+        long seenRequired = 0;
+        int propertyCount = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            propertyCount++;
+            path.push(name);
+
+            Property property = node.properties.get(name);
+            if (property == null && node.additionalProperties == null && !node.additionalPropertiesAllowed) {
+                // Abbruch, bevor der Wert überhaupt gelesen wird
+                throw new StreamingValidationException(path.pointer(), "additionalProperties",
+                        "extraneous key [" + name + "] is not permitted");
+            }
+
+            JsonToken valueToken = parser.nextToken();
+            if (property != null) {
+                seenRequired |= property.requiredBit;
+                validateValue(parser, valueToken, property.node, path, depth + 1);
+            } else if (node.additionalProperties != null) {
+                validateValue(parser, valueToken, node.additionalProperties, path, depth + 1);
+            } else {
+                parser.skipChildren();
+            }
+            path.pop();
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new StreamingValidationException(path.pointer(), "type", "unexpected token " + token);
+        }
+
+        if (seenRequired != node.requiredMask) {
+            throw new StreamingValidationException(path.pointer(), "required",
+                    "required key [" + node.firstMissing(seenRequired) + "] not found");
+        }
+        if (propertyCount < node.minProperties || propertyCount > node.maxProperties) {
+            throw new StreamingValidationException(path.pointer(), "properties",
+                    "object has " + propertyCount + " properties");
+        }
+    }
+
+    private void validateArray(JsonParser parser, Node node, Path path, int depth) throws IOException {
+        requireType(node, ARRAY, path, "array");
+        checkDepth(depth, path);
+
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new StreamingValidationException(path.pointer(), "type", "unterminated array");
+            }
+            if (index >= node.maxItems) {
+                throw new StreamingValidationException(path.pointer(), "maxItems",
+                        "expected maximum item count: " + node.maxItems);
+            }
+            path.push(index);
+            if (node.items != null) {
+                validateValue(parser, token, node.items, path, depth + 1);
+            } else {
+                parser.skipChildren();
+            }
+            path.pop();
+            index++;
+        }
+        if (index < node.minItems) {
+            throw new StreamingValidationException(path.pointer(), "minItems",
+                    "expected minimum item count: " + node.minItems + ", found: " + index);
+        }
+    }
+
+    private void validateString(JsonParser parser, Node node, Path path) throws IOException {
+        requireType(node, STRING, path, "string");
+        int length = parser.getTextLength();
+        if (length > limits.maxStringLength()) {
+            throw new StreamingValidationException(path.pointer(), "maxStringLength",
+                    "string of " + length + " chars exceeds limit of " + limits.maxStringLength());
+        }
+        if (node.minLength > 0 || node.maxLength < Integer.MAX_VALUE) {
+            // Schema-Längen zählen Codepoints, nicht UTF-16-Einheiten
+            String text = parser.getText();
+            int codePoints = text.codePointCount(0, text.length());
+            if (codePoints < node.minLength) {
+                throw new StreamingValidationException(path.pointer(), "minLength",
+                        "expected minLength: " + node.minLength + ", actual: " + codePoints);
+            }
+            if (codePoints > node.maxLength) {
+                throw new StreamingValidationException(path.pointer(), "maxLength",
+                        "expected maxLength: " + node.maxLength + ", actual: " + codePoints);
+            }
+        }
+    }
+
+    private void validateNumber(JsonParser parser, Node node, Path path, boolean integral) throws IOException {
+        if (integral) {
+            requireType(node, INTEGER | NUMBER, path, "integer");
+        } else if ((node.types & NUMBER) == 0) {
+            // 1.0 ist laut JSON Schema ein Integer
+            boolean integralValue = parser.getDecimalValue().stripTrailingZeros().scale() <= 0;
+            requireType(node, integralValue ? INTEGER : NUMBER, path, "number");
+        }
+
+        if (!node.hasNumericBounds()) {
+            return;
+        }
+        BigDecimal value = parser.getNumberType() == JsonParser.NumberType.INT
+                || parser.getNumberType() == JsonParser.NumberType.LONG
+                ? BigDecimal.valueOf(parser.getLongValue())
+                : parser.getDecimalValue();
+
+        if (node.minimum != null && value.compareTo(node.minimum) < 0) {
+            throw new StreamingValidationException(path.pointer(), "minimum",
+                    value + " is not greater or equal to " + node.minimum);
+        }
+        if (node.exclusiveMinimum != null && value.compareTo(node.exclusiveMinimum) <= 0) {
+            throw new StreamingValidationException(path.pointer(), "exclusiveMinimum",
+                    value + " is not greater than " + node.exclusiveMinimum);
+        }
+        if (node.maximum != null && value.compareTo(node.maximum) > 0) {
+            throw new StreamingValidationException(path.pointer(), "maximum",
+                    value + " is not less or equal to " + node.maximum);
+        }
+        if (node.exclusiveMaximum != null && value.compareTo(node.exclusiveMaximum) >= 0) {
+            throw new StreamingValidationException(path.pointer(), "exclusiveMaximum",
+                    value + " is not less than " + node.exclusiveMaximum);
+        }
+    }
+
+    private static void requireType(Node node, int type, Path path, String actual) {
+        if ((node.types & type) == 0) {
+            throw new StreamingValidationException(path.pointer(), "type",
+                    "expected type: " + node.typeNames() + ", found: " + actual);
+        }
+    }
+
+    private void checkDepth(int depth, Path path) {
+        if (depth > limits.maxNestingDepth()) {
+            throw new StreamingValidationException(path.pointer(), "maxNestingDepth",
+                    "nesting depth exceeds limit of " + limits.maxNestingDepth());
+        }
+    }
+
+    // ============================================================================
+    // SCHEMA COMPILATION
+    // ============================================================================
+
+    private static Node compileNode(JsonNode schema) {
+        if (schema.isBoolean()) {
+            if (!schema.booleanValue()) {
+                throw new UnsupportedSchemaException("false");
+            }
+            return new Node();
+        }
+        if (!schema.isObject()) {
+            throw new UnsupportedSchemaException("non-object schema");
+        }
+
+        Node node = new Node();
+        Iterator<Map.Entry<String, JsonNode>> fields = schema.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            switch (field.getKey()) {
+                // type und oneOf/anyOf gelten beide – die erlaubten Typen sind die Schnittmenge
+                case "type" -> node.types &= types(value);
+                case "oneOf", "anyOf" -> node.types &= typeUnion(value);
+                case "properties" -> value.fields().forEachRemaining(p ->
+                        node.properties.put(p.getKey(), new Property(compileNode(p.getValue()))));
+                case "required" -> value.forEach(r -> node.required.add(r.asText()));
+                case "additionalProperties" -> {
+                    if (value.isBoolean()) {
+                        node.additionalPropertiesAllowed = value.booleanValue();
+                    } else {
+                        node.additionalProperties = compileNode(value);
+                    }
+                }
+                case "items" -> node.items = compileNode(value);
+                case "minimum" -> node.minimum = bound(field);
+                case "maximum" -> node.maximum = bound(field);
+                case "exclusiveMinimum" -> node.exclusiveMinimum = bound(field);
+                case "exclusiveMaximum" -> node.exclusiveMaximum = bound(field);
+                case "minLength" -> node.minLength = value.intValue();
+                case "maxLength" -> node.maxLength = value.intValue();
+                case "minItems" -> node.minItems = value.intValue();
+                case "maxItems" -> node.maxItems = value.intValue();
+                case "minProperties" -> node.minProperties = value.intValue();
+                case "maxProperties" -> node.maxProperties = value.intValue();
+                default -> {
+                    if (!ANNOTATIONS.contains(field.getKey())) {
+                        throw new UnsupportedSchemaException(field.getKey());
+                    }
+                }
+            }
+        }
+        node.assignRequiredBits();
+        return node;
+    }
+
+    /**
+     * Numerische Grenze. Die boolesche Draft-04-Form von {@code exclusiveMinimum}/{@code exclusiveMaximum}
+     * verändert die Bedeutung von {@code minimum}/{@code maximum} und wird nicht unterstützt.
+     */
+    private static BigDecimal bound(Map.Entry<String, JsonNode> field) {
+        if (!field.getValue().isNumber()) {
+            throw new UnsupportedSchemaException(field.getKey() + ": " + field.getValue());
+        }
+        return field.getValue().decimalValue();
+    }
+
+    private static int types(JsonNode type) {
+        if (type.isArray()) {
+            int types = 0;
+            for (JsonNode t : type) {
+                types |= types(t);
+            }
+            return types;
+        }
+        return switch (type.asText()) {
+            case "null" -> NULL;
+            case "boolean" -> BOOLEAN;
+            case "integer" -> INTEGER;
+            case "number" -> NUMBER;
+            case "string" -> STRING;
+            case "object" -> OBJECT;
+            case "array" -> ARRAY;
+            default -> throw new UnsupportedSchemaException("type " + type.asText());
+        };
+    }
+
+    /**
+     * {@code oneOf}/{@code anyOf} wird nur unterstützt, wenn jeder Zweig eine reine Typ-Alternative mit
+     * disjunktem Typ ist – dann sind beide Schlüsselwörter gleichbedeutend mit einem {@code type}-Array.
+     * {@code number} umfasst dabei {@code integer}: Bei {@code oneOf: [integer, number]} erfüllt eine ganze Zahl
+     * beide Zweige und verletzt {@code oneOf}, das lässt sich nicht als Typ-Menge abbilden.
+     */
+    private static int typeUnion(JsonNode branches) {
+        int types = 0;
+        int covered = 0;
+        for (JsonNode branch : branches) {
+            Iterator<String> names = branch.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!name.equals("type") && !ANNOTATIONS.contains(name)) {
+                    throw new UnsupportedSchemaException("oneOf branch with " + name);
+                }
+            }
+            int branchTypes = branch.has("type") ? types(branch.get("type")) : ANY;
+            int branchCovers = (branchTypes & NUMBER) != 0 ? branchTypes | INTEGER : branchTypes;
+            if ((covered & branchCovers) != 0 || branchTypes == ANY) {
+                throw new UnsupportedSchemaException("overlapping oneOf branches");
+            }
+            covered |= branchCovers;
+            types |= branchTypes;
+        }
+        return types;
+    }
+
+    private static final class Node {
+        private int types = ANY;
+        private final Map<String, Property> properties = new HashMap<>();
+        private final List<String> required = new ArrayList<>();
+        private long requiredMask;
+        private boolean additionalPropertiesAllowed = true;
+        private Node additionalProperties;
+        private Node items;
+        private BigDecimal minimum;
+        private BigDecimal maximum;
+        private BigDecimal exclusiveMinimum;
+        private BigDecimal exclusiveMaximum;
+        private int minLength;
+        private int maxLength = Integer.MAX_VALUE;
+        private int minItems;
+        private int maxItems = Integer.MAX_VALUE;
+        private int minProperties;
+        private int maxProperties = Integer.MAX_VALUE;
+
+        private void assignRequiredBits() {
+            if (required.size() > Long.SIZE) {
+                throw new UnsupportedSchemaException("more than 64 required properties");
+            }
+            for (int i = 0; i < required.size(); i++) {
+                String name = required.get(i);
+                Property property = properties.get(name);
+                if (property == null) {
+                    // Pflichtfeld ohne eigenes Schema: gilt das Schema für zusätzliche Properties
+                    Node fallback = additionalProperties != null ? additionalProperties
+                            : additionalPropertiesAllowed ? new Node() : rejectAll();
+                    property = new Property(fallback);
+                    properties.put(name, property);
+                }
+                property.requiredBit = 1L << i;
+                requiredMask |= property.requiredBit;
+            }
+        }
+
+        private boolean hasNumericBounds() {
+            return minimum != null || maximum != null || exclusiveMinimum != null || exclusiveMaximum != null;
+        }
+
+        private String firstMissing(long seen) {
+            for (int i = 0; i < required.size(); i++) {
+                if ((seen & (1L << i)) == 0) {
+                    return required.get(i);
+                }
+            }
+            return "?";
+        }
+
+        private String typeNames() {
+            List<String> names = new ArrayList<>();
+            String[] all = {"null", "boolean", "integer", "number", "string", "object", "array"};
+            for (int i = 0; i < all.length; i++) {
+                if ((types & (1 << i)) != 0) {
+                    names.add(all[i]);
+                }
+            }
+            return String.join("|", names);
+        }
+
+        private static Node rejectAll() {
+            Node node = new Node();
+            node.types = 0;
+            return node;
+        }
+    }
+
+    private static final class Property {
+        private final Node node;
+        private long requiredBit;
+
+        private Property(Node node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * Aktueller Pfad als Stack von Segmenten; der JSON-Pointer wird nur im Fehlerfall gebaut.
+     */
+    private static final class Path {
+        private final ArrayList<Object> segments = new ArrayList<>();
+
+        void push(Object segment) {
+            segments.add(segment);
+        }
+
+        void pop() {
+            segments.remove(segments.size() - 1);
+        }
+
+        String pointer() {
+            StringBuilder sb = new StringBuilder("#");
+            for (Object segment : segments) {
+                sb.append('/').append(segment.toString().replace("~", "~0").replace("/", "~1"));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class UnsupportedSchemaException extends RuntimeException {
+        private UnsupportedSchemaException(String keyword) {
+            super(keyword, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package de.jwiegmann.registry.poc.validation;
+
+import lombok.Getter;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Wird vom {@link StreamingJsonSchemaValidator} bei der ersten Schema-Verletzung geworfen.
+ * <p>
+ * Enthält den JSON-Pointer der Verletzung und das verletzte Schlüsselwort, damit der
+ * {@link de.jwiegmann.registry.poc.SchemaValidationErrorHandler} sie als strukturierte Felder ausgeben kann.
+ */
+@Getter
+public class StreamingValidationException extends SerializationException {
+
+    private final String pointerToViolation;
+    private final String keyword;
+
+    public StreamingValidationException(String pointerToViolation, String keyword, String message) {
+        super(pointerToViolation + ": " + message);
+        this.pointerToViolation = pointerToViolation;
+        this.keyword = keyword;
+    }
+
+    /**
+     * Die Fehlermeldung ohne vorangestellten Pointer.
+     *
+     * @return die Fehlermeldung
+     */
+    public String getErrorMessage() {
+        return getMessage().substring(pointerToViolation.length() + 2);
+    }
+}
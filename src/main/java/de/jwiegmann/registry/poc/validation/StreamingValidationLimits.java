@@ -0,0 +1,39 @@
+package de.jwiegmann.registry.poc.validation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+
+/**
+ * Harte Grenzen, die die Streaming-Validierung unabhängig vom Schema durchsetzt.
+ *
+ * @param maxPayloadBytes  maximale Payload-Größe in Bytes (ohne Wire-Header)
+ * @param maxNestingDepth  maximale Verschachtelungstiefe von Objekten und Arrays
+ * @param maxStringLength  maximale Länge von String-Werten und Feldnamen in Zeichen
+ */
+public record StreamingValidationLimits(int maxPayloadBytes, int maxNestingDepth, int maxStringLength) {
+
+    public static final StreamingValidationLimits DEFAULTS = new StreamingValidationLimits(1024 * 1024, 32, 256 * 1024);
+
+    public StreamingValidationLimits {
+        if (maxPayloadBytes <= 0 || maxNestingDepth <= 0 || maxStringLength <= 0) {
+            throw new IllegalArgumentException("Streaming validation limits must be positive");
+        }
+    }
+
+    /**
+     * Erzeugt eine {@link JsonFactory}, deren {@link StreamReadConstraints} diese Grenzen durchsetzen – für den
+     * Streaming-Validator ebenso wie für jeden baumbasierten Rückfallweg, damit beide dieselben Limits haben.
+     *
+     * @return eine neue Factory; Aufrufer halten sie, statt sie je Record zu erzeugen
+     */
+    public JsonFactory jsonFactory() {
+        return JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder()
+                        .maxNestingDepth(maxNestingDepth)
+                        .maxStringLength(maxStringLength)
+                        .maxNameLength(maxStringLength)
+                        .maxDocumentLength(maxPayloadBytes)
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package de.jwiegmann.registry.poc;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prüft, dass die per Reflection instanziierten Kafka-Klassen und die Ressourcen für Spring AOT registriert sind.
+ */
+class KafkaRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    KafkaRuntimeHintsTest() {
+        new KafkaRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void shouldRegisterSerdesInstantiatedByKafka() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(MyKafkaMessageSerializer.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(StreamingJsonSchemaDeserializer.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(EncodingDispatchingDeserializer.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(MyKafkaMessage.class)).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterSchemaResources() {
+        assertThat(RuntimeHintsPredicates.resource()
+                .forResource("META-INF/schema-metadata/de.jwiegmann.registry.poc.control.dto.MyKafkaMessage.json"))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("avro/MyKafkaMessage.avsc")).accepts(hints);
+    }
+}
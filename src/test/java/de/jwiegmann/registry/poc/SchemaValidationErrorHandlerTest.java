@@ -0,0 +1,129 @@
+package de.jwiegmann.registry.poc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-Tests für die begrenzte Payload-Formatierung und die Fehler-Aggregation
+ * des {@link SchemaValidationErrorHandler}.
+ */
+public class SchemaValidationErrorHandlerTest {
+
+    @Test
+    public void shouldSkipWireHeaderAndDecodeText() {
+        byte[] payload = withWireHeader("{\"version\":-1}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(SchemaValidationErrorHandler.formatBytes(payload)).isEqualTo("{\"version\":-1}");
+    }
+
+    @Test
+    public void shouldOnlyDecodeBoundedPrefixOfLargePayload() {
+        byte[] payload = "x".repeat(5 * 1024 * 1024).getBytes(StandardCharsets.UTF_8);
+
+        String formatted = SchemaValidationErrorHandler.formatBytes(payload);
+
+        assertThat(formatted).startsWith("x".repeat(SchemaValidationErrorHandler.MAX_TEXT_BYTES));
+        assertThat(formatted).endsWith("[" + payload.length + " bytes total]");
+        assertThat(formatted.length()).isLessThan(SchemaValidationErrorHandler.MAX_TEXT_BYTES + 64);
+    }
+
+    @Test
+    public void shouldNotSplitMultibyteCharacterAtPrefixBoundary() {
+        // "ä" belegt 2 Bytes – die Grenze fällt genau in die Sequenz
+        String text = "a".repeat(SchemaValidationErrorHandler.MAX_TEXT_BYTES - 1) + "ä".repeat(10);
+
+        String formatted = SchemaValidationErrorHandler.formatBytes(text.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(formatted).startsWith("a".repeat(SchemaValidationErrorHandler.MAX_TEXT_BYTES - 1) + "…");
+        assertThat(formatted).doesNotContain("�");
+    }
+
+    @Test
+    public void shouldHexDumpBinaryPayload() {
+        byte[] payload = new byte[200];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (0x80 + i % 64);
+        }
+
+        String formatted = SchemaValidationErrorHandler.formatBytes(payload);
+
+        assertThat(formatted).startsWith("[binary] 80 81 82");
+        assertThat(formatted).endsWith("[200 bytes total]");
+    }
+
+    @Test
+    public void shouldAggregateIdenticalFailuresWithinWindow() {
+        SchemaValidationErrorHandler handler = new SchemaValidationErrorHandler();
+        SchemaValidationErrorHandler.FailureKey key =
+                new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/version (minimum)"));
+        long window = SchemaValidationErrorHandler.AGGREGATION_WINDOW.toNanos();
+
+        assertThat(handler.register(key, 0)).isZero();
+        assertThat(handler.register(key, 1)).isEqualTo(-1);
+        assertThat(handler.register(key, 2)).isEqualTo(-1);
+        assertThat(handler.register(key, window)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReportAndRemoveExpiredWindows() {
+        SchemaValidationErrorHandler handler = new SchemaValidationErrorHandler();
+        SchemaValidationErrorHandler.FailureKey recurring =
+                new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/version (minimum)"));
+        SchemaValidationErrorHandler.FailureKey once =
+                new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/id (type)"));
+        long window = SchemaValidationErrorHandler.AGGREGATION_WINDOW.toNanos();
+
+        handler.register(recurring, 0);
+        handler.register(recurring, 1);
+        handler.register(recurring, 2);
+        handler.register(once, window / 2);
+
+        assertThat(handler.flushExpired(window - 1)).isZero();
+        assertThat(handler.flushExpired(window)).isEqualTo(2);
+        assertThat(handler.windowCount()).isEqualTo(1);
+        assertThat(handler.flushExpired(window + window / 2)).isZero();
+        assertThat(handler.windowCount()).isZero();
+    }
+
+    @Test
+    public void shouldBoundNumberOfWindows() {
+        SchemaValidationErrorHandler handler = new SchemaValidationErrorHandler();
+        for (int i = 0; i <= SchemaValidationErrorHandler.MAX_WINDOWS; i++) {
+            handler.register(new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/f" + i)), i);
+        }
+
+        assertThat(handler.windowCount()).isEqualTo(SchemaValidationErrorHandler.MAX_WINDOWS);
+    }
+
+    @Test
+    public void shouldEvictWindowWithOldestStart() {
+        SchemaValidationErrorHandler handler = new SchemaValidationErrorHandler();
+        long window = SchemaValidationErrorHandler.AGGREGATION_WINDOW.toNanos();
+        SchemaValidationErrorHandler.FailureKey restarted =
+                new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/f0"));
+        for (int i = 0; i < SchemaValidationErrorHandler.MAX_WINDOWS; i++) {
+            handler.register(new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/f" + i)), i);
+        }
+        // Treffer im laufenden Fenster ändern die Reihenfolge nicht, ein neu gestartetes Fenster ist das jüngste
+        handler.register(new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/f1")), 2);
+        handler.register(restarted, window);
+
+        handler.register(new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/neu")), window);
+
+        assertThat(handler.windowCount()).isEqualTo(SchemaValidationErrorHandler.MAX_WINDOWS);
+        assertThat(handler.register(restarted, window + 1)).isEqualTo(-1);
+        assertThat(handler.register(
+                new SchemaValidationErrorHandler.FailureKey("my-topic", 1, "X", List.of("#/f1")), window + 1)).isZero();
+    }
+
+    private static byte[] withWireHeader(byte[] body) {
+        byte[] data = new byte[body.length + 5];
+        data[4] = 1;
+        System.arraycopy(body, 0, data, 5, body.length);
+        return data;
+    }
+}
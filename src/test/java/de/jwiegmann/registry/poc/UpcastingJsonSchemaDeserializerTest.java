@@ -0,0 +1,71 @@
+package de.jwiegmann.registry.poc;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.upcast.MyKafkaMessageUpcaster;
+import de.jwiegmann.registry.poc.upcast.UpcastProperties;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaProvider;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit-Tests für den {@link UpcastingJsonSchemaDeserializer} mit einer älteren Schema-Version, die der
+ * Streaming-Validator nicht kompilieren kann ({@code pattern}) – auch sie muss über den Upcasting-Plan gebunden werden.
+ */
+class UpcastingJsonSchemaDeserializerTest {
+
+    // Alte Version: "msg" statt "message", kein "version", ID per pattern eingeschränkt
+    private static final String OLD_SCHEMA = """
+            {"type":"object","properties":{
+              "id":{"type":"string","pattern":"^[0-9]+$"},
+              "msg":{"type":"string"},
+              "status":{"type":"string"}},
+             "required":["id","msg"]}""";
+
+    private final SchemaRegistryClient client = new MockSchemaRegistryClient(List.of(new JsonSchemaProvider()));
+    private final UpcastingJsonSchemaDeserializer deserializer = new UpcastingJsonSchemaDeserializer();
+    private int schemaId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        schemaId = client.register("old", new JsonSchema(OLD_SCHEMA));
+        deserializer.configure(Map.of(
+                "schema.registry.url", "mock://upcasting",
+                MyKafkaMessageSerializer.SCHEMA_REGISTRY_CLIENT_CONFIG, client,
+                UpcastingJsonSchemaDeserializer.UPCASTER_CONFIG, new MyKafkaMessageUpcaster(
+                        new UpcastProperties(true, Map.of("msg", "message"), Map.of("version", "1"))),
+                "json.value.type", MyKafkaMessage.class.getName()), false);
+    }
+
+    @Test
+    void shouldUpcastRecordOfSchemaUnsupportedByStreamingValidator() {
+        MyKafkaMessage message = deserializer.deserialize("my-topic",
+                frame("{\"id\":\"42\",\"msg\":\"alt\",\"status\":\"NEU\"}"));
+
+        assertThat(message.getId()).isEqualTo("42");
+        assertThat(message.getMessage()).isEqualTo("alt");
+        assertThat(message.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStillRejectInvalidRecordOfUnsupportedSchema() {
+        assertThatThrownBy(() -> deserializer.deserialize("my-topic", frame("{\"id\":\"abc\",\"msg\":\"alt\"}")))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private byte[] frame(String json) {
+        byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(5 + payload.length).put((byte) 0).putInt(schemaId).put(payload).array();
+    }
+}
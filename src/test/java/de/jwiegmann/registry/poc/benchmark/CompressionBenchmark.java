@@ -0,0 +1,122 @@
+package de.jwiegmann.registry.poc.benchmark;
+
+import de.jwiegmann.registry.poc.compression.CompressionProfile;
+import de.jwiegmann.registry.poc.compression.CompressionSelector;
+import de.jwiegmann.registry.poc.compression.PayloadSizeHistograms;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Durchsatz und Bytes auf dem Wire je Kompressionsprofil und Payload-Größe gegen den Testcontainers-Broker.
+ * <p>
+ * Kein JMH-Benchmark, da ein Broker benötigt wird; wird von Surefire nicht automatisch ausgeführt:
+ * <pre>
+ * mvn test -Dtest=CompressionBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ * Je Payload-Größe werden etwa {@value #BYTES_PER_RUN} Bytes Nutzdaten gesendet; die Nachrichten bestehen aus
+ * zufällig gewählten Wörtern eines kleinen Vokabulars, damit sie ähnlich gut komprimierbar sind wie Fließtext.
+ * Die Spalte {@code adaptiv} zeigt, welches Profil der {@link CompressionSelector} für die Größe wählen würde.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+@TestPropertySource(properties = "kafka.group=compression-benchmark-group")
+public class CompressionBenchmark extends TestBase {
+
+    private static final int BYTES_PER_RUN = 32 * 1024 * 1024;
+    private static final int[] MESSAGE_LENGTHS = {64, 4 * 1024, 256 * 1024};
+    private static final List<String> CODECS = List.of("none", "lz4", "zstd", "snappy");
+    private static final String[] WORDS = {
+            "schema", "registry", "kafka", "topic", "version", "message", "consumer", "producer", "subject",
+            "validation", "payload", "partition", "offset", "broker", "record", "compatibility"};
+
+    @Autowired
+    private ProducerFactory<String, MyKafkaMessage> producerFactory;
+
+    @Autowired
+    private CompressionSelector compressionSelector;
+
+    @Autowired
+    private PayloadSizeHistograms histograms;
+
+    @Test
+    public void reportThroughputAndBytesOnWirePerProfile() {
+        StringBuilder report = new StringBuilder(
+                "\nmessage bytes | profile                                | records/s |  MiB/s | wire bytes/record | wire/payload\n");
+        for (int length : MESSAGE_LENGTHS) {
+            MyKafkaMessage message = new MyKafkaMessage("id", text(length), 1);
+            int records = Math.max(200, Math.min(20_000, BYTES_PER_RUN / length));
+
+            for (String codec : CODECS) {
+                run(report, length, records, message, new CompressionProfile(codec, 64 * 1024, Duration.ofMillis(10)));
+            }
+
+            // Was die größenabhängige Auswahl nach dem ersten Durchlauf wählen würde
+            CompressionProfile adaptive = histograms.stats("compression-benchmark-" + length + "-none")
+                    .map(compressionSelector::select)
+                    .orElseThrow();
+            run(report.append("adaptiv → "), length, records, message, adaptive);
+        }
+        System.out.println(report);
+    }
+
+    private void run(StringBuilder report, int length, int records, MyKafkaMessage message, CompressionProfile profile) {
+        Map<String, Object> configs = new HashMap<>(producerFactory.getConfigurationProperties());
+        configs.putAll(profile.toProducerConfig());
+        DefaultKafkaProducerFactory<String, MyKafkaMessage> factory = new DefaultKafkaProducerFactory<>(configs);
+        KafkaTemplate<String, MyKafkaMessage> template = new KafkaTemplate<>(factory);
+        String topic = "compression-benchmark-" + length + "-" + profile.compressionType();
+        try {
+            // Aufwärmen: Verbindung, Metadaten und Schema-Lookup nicht mitmessen
+            template.send(topic, message).join();
+            double wireBefore = producerMetric(template, "outgoing-byte-total");
+
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                template.send(topic, message);
+            }
+            template.flush();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            // Wire-Bytes enthalten Request-Overhead; Verhältnis zur serialisierten (unkomprimierten) Payload
+            double wire = producerMetric(template, "outgoing-byte-total") - wireBefore;
+            long serialized = histograms.stats(topic).orElseThrow().max();
+            report.append(String.format("%13d | %-38s | %9.0f | %6.1f | %17.0f | %5.2f%n",
+                    length, profile, records / seconds, records * (double) serialized / seconds / (1024 * 1024),
+                    wire / records, wire / ((double) records * serialized)));
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private static double producerMetric(KafkaTemplate<?, ?> template, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : template.metrics().entrySet()) {
+            if (entry.getKey().name().equals(name) && entry.getKey().group().equals("producer-metrics")) {
+                return ((Number) entry.getValue().metricValue()).doubleValue();
+            }
+        }
+        return -1;
+    }
+
+    private static String text(int length) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return text.substring(0, length);
+    }
+}
@@ -0,0 +1,122 @@
+package de.jwiegmann.registry.poc.benchmark;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.encoding.MyKafkaMessageAvroMapper;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
+import io.confluent.kafka.serializers.subject.RecordNameStrategy;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht JSON Schema und Avro für denselben logischen {@link MyKafkaMessage}-Record:
+ * Serialisierungs- und Deserialisierungs-Durchsatz sowie die Record-Größe auf dem Wire
+ * (wird beim Setup je Parameterkombination ausgegeben).
+ * <p>
+ * Die Registry wird per {@link MockSchemaRegistryClient} simuliert. Ausführen mit:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.jwiegmann.registry.poc.benchmark.EncodingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+
+    private static final String TOPIC = "my-topic";
+
+    @Param({"32", "4096"})
+    public int messageLength;
+
+    private KafkaJsonSchemaSerializer<MyKafkaMessage> jsonSerializer;
+    private KafkaJsonSchemaDeserializer<MyKafkaMessage> jsonDeserializer;
+    private KafkaAvroSerializer avroSerializer;
+    private KafkaAvroDeserializer avroDeserializer;
+
+    private MyKafkaMessage message;
+    private byte[] jsonBytes;
+    private byte[] avroBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        String jsonSchema;
+        try (InputStream is = getClass().getResourceAsStream("/schema.json")) {
+            jsonSchema = StreamUtils.copyToString(is, StandardCharsets.UTF_8);
+        }
+
+        SchemaRegistryClient client = new MockSchemaRegistryClient();
+        client.register(MyKafkaMessage.class.getName(), new JsonSchema(jsonSchema));
+        client.register(MyKafkaMessageAvroMapper.SCHEMA.getFullName(), new AvroSchema(MyKafkaMessageAvroMapper.SCHEMA));
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("schema.registry.url", "mock://benchmark");
+        configs.put("auto.register.schemas", false);
+        configs.put("use.latest.version", true);
+        configs.put("latest.compatibility.strict", false);
+        configs.put("value.subject.name.strategy", RecordNameStrategy.class);
+        configs.put("specific.json.reader", true);
+        configs.put("json.value.type", MyKafkaMessage.class.getName());
+        configs.put("json.fail.invalid.schema", true);
+
+        jsonSerializer = new KafkaJsonSchemaSerializer<>(client);
+        jsonSerializer.configure(configs, false);
+        jsonDeserializer = new KafkaJsonSchemaDeserializer<>(client);
+        jsonDeserializer.configure(configs, false);
+        avroSerializer = new KafkaAvroSerializer(client);
+        avroSerializer.configure(configs, false);
+        avroDeserializer = new KafkaAvroDeserializer(client);
+        avroDeserializer.configure(configs, false);
+
+        message = new MyKafkaMessage("benchmark-id", "x".repeat(messageLength), 1);
+        jsonBytes = jsonSerializer.serialize(TOPIC, message);
+        avroBytes = avroSerializer.serialize(TOPIC, MyKafkaMessageAvroMapper.toRecord(message));
+
+        System.out.printf("%nmessageLength=%d: JSON record %d bytes, Avro record %d bytes%n",
+                messageLength, jsonBytes.length, avroBytes.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, message);
+    }
+
+    @Benchmark
+    public byte[] avroSerialize() {
+        return avroSerializer.serialize(TOPIC, MyKafkaMessageAvroMapper.toRecord(message));
+    }
+
+    @Benchmark
+    public MyKafkaMessage jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, jsonBytes);
+    }
+
+    @Benchmark
+    public MyKafkaMessage avroDeserialize() {
+        return MyKafkaMessageAvroMapper.fromRecord((GenericRecord) avroDeserializer.deserialize(TOPIC, avroBytes));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(EncodingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
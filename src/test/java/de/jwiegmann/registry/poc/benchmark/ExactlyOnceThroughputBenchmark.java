@@ -0,0 +1,77 @@
+package de.jwiegmann.registry.poc.benchmark;
+
+import de.jwiegmann.registry.poc.control.ExactlyOnceProperties;
+import de.jwiegmann.registry.poc.control.ExactlyOnceRepublisher;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Durchsatz der transaktionalen Strecke je Batch-Größe gegen den Testcontainers-Broker.
+ * <p>
+ * Kein JMH-Benchmark, da ein Broker benötigt wird; wird von Surefire nicht automatisch ausgeführt:
+ * <pre>
+ * mvn test -Dtest=ExactlyOnceThroughputBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ * Jede Batch-Größe liest dieselben {@value #RECORDS} Records mit einer eigenen Consumer-Gruppe.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+@TestPropertySource(properties = "kafka.group=exactly-once-benchmark-group")
+public class ExactlyOnceThroughputBenchmark extends TestBase {
+
+    private static final int RECORDS = 2_000;
+    private static final int[] BATCH_SIZES = {1, 10, 100, 500, 1_000};
+    private static final String INPUT_TOPIC = "exactly-once-benchmark-in";
+    private static final String OUTPUT_TOPIC = "exactly-once-benchmark-out";
+
+    @Autowired
+    private KafkaTemplate<String, MyKafkaMessage> kafkaTemplate;
+
+    @Autowired
+    private ConsumerFactory<String, MyKafkaMessage> consumerFactory;
+
+    @Autowired
+    private ProducerFactory<String, MyKafkaMessage> producerFactory;
+
+    @Test
+    public void reportThroughputPerBatchSize() {
+        for (int i = 0; i < RECORDS; i++) {
+            kafkaTemplate.send(INPUT_TOPIC, new MyKafkaMessage(String.valueOf(i), "Benchmark", 1));
+        }
+        kafkaTemplate.flush();
+
+        StringBuilder report = new StringBuilder("\nbatch-max-records | records/s | transactions\n");
+        for (int batchSize : BATCH_SIZES) {
+            String group = "exactly-once-benchmark-" + batchSize;
+            ExactlyOnceProperties properties = new ExactlyOnceProperties(true, INPUT_TOPIC, OUTPUT_TOPIC, group,
+                    group + "-tx-", batchSize, Duration.ofMillis(100));
+            ExactlyOnceRepublisher republisher = new ExactlyOnceRepublisher(
+                    consumerFactory, producerFactory, properties, UnaryOperator.identity());
+
+            long start = System.nanoTime();
+            republisher.start();
+            try {
+                await().atMost(5, TimeUnit.MINUTES).pollInterval(Duration.ofMillis(10))
+                        .until(() -> republisher.getCommittedRecords() >= RECORDS);
+            } finally {
+                republisher.stop();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            report.append(String.format("%17d | %9.0f | %12d%n",
+                    batchSize, RECORDS / seconds, republisher.getCommittedTransactions()));
+        }
+        System.out.println(report);
+    }
+}
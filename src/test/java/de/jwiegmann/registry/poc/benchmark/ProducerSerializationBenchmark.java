@@ -0,0 +1,95 @@
+package de.jwiegmann.registry.poc.benchmark;
+
+import de.jwiegmann.registry.poc.MyKafkaMessageSerializer;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
+import io.confluent.kafka.serializers.subject.RecordNameStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht den {@link KafkaJsonSchemaSerializer} mit dem allokationsarmen {@link MyKafkaMessageSerializer}
+ * bei identischer Konfiguration ({@code use.latest.version=true}, {@code RecordNameStrategy}).
+ * <p>
+ * Die Registry wird per {@link MockSchemaRegistryClient} simuliert. Der {@link GCProfiler} ist fest aktiviert;
+ * relevant ist vor allem {@code gc.alloc.rate.norm} (Bytes pro Nachricht). Ausführen mit:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.jwiegmann.registry.poc.benchmark.ProducerSerializationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProducerSerializationBenchmark {
+
+    private static final String TOPIC = "my-topic";
+
+    @Param({"32", "4096"})
+    public int messageLength;
+
+    private KafkaJsonSchemaSerializer<MyKafkaMessage> stockSerializer;
+    private MyKafkaMessageSerializer pooledSerializer;
+    private MyKafkaMessage message;
+
+    @Setup
+    public void setUp() throws Exception {
+        String schemaString;
+        try (InputStream is = getClass().getResourceAsStream("/schema.json")) {
+            schemaString = StreamUtils.copyToString(is, StandardCharsets.UTF_8);
+        }
+
+        SchemaRegistryClient client = new MockSchemaRegistryClient();
+        client.register(MyKafkaMessage.class.getName(), new JsonSchema(schemaString));
+
+        Map<String, Object> configs = Map.of(
+                "schema.registry.url", "mock://benchmark",
+                "auto.register.schemas", false,
+                "use.latest.version", true,
+                "latest.compatibility.strict", false,
+                "value.subject.name.strategy", RecordNameStrategy.class);
+
+        stockSerializer = new KafkaJsonSchemaSerializer<>(client, configs);
+        pooledSerializer = new MyKafkaMessageSerializer(client);
+        pooledSerializer.configure(configs, false);
+
+        message = new MyKafkaMessage("benchmark-id", "x".repeat(messageLength), 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stockSerializer.close();
+        pooledSerializer.close();
+    }
+
+    @Benchmark
+    public byte[] stock() {
+        return stockSerializer.serialize(TOPIC, message);
+    }
+
+    @Benchmark
+    public byte[] pooled() {
+        return pooledSerializer.serialize(TOPIC, message);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ProducerSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+package de.jwiegmann.registry.poc.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.validation.StreamingJsonSchemaValidator;
+import de.jwiegmann.registry.poc.validation.StreamingValidationLimits;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht die baumbasierte Validierung des {@code KafkaJsonSchemaDeserializer} (JSON-Baum parsen,
+ * gegen {@link JsonSchema} validieren, Baum auf das DTO mappen) mit der Streaming-Validierung
+ * ({@link StreamingJsonSchemaValidator} + direktes Binden) für gültige und ungültige Payloads.
+ * <p>
+ * Ausführen mit:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.jwiegmann.registry.poc.benchmark.StreamingValidationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingValidationBenchmark {
+
+    @Param({"small-valid", "large-valid", "large-invalid-extra-field", "large-invalid-version-type"})
+    public String payload;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ObjectReader reader;
+    private JsonSchema jsonSchema;
+    private StreamingJsonSchemaValidator validator;
+    private byte[] data;
+
+    @Setup
+    public void setUp() throws Exception {
+        String schemaString;
+        try (InputStream is = getClass().getResourceAsStream("/schema.json")) {
+            schemaString = StreamUtils.copyToString(is, StandardCharsets.UTF_8);
+        }
+        jsonSchema = new JsonSchema(schemaString);
+        validator = StreamingJsonSchemaValidator
+                .compile(mapper.readTree(schemaString), StreamingValidationLimits.DEFAULTS)
+                .orElseThrow();
+        reader = mapper.readerFor(MyKafkaMessage.class);
+
+        String large = "x".repeat(256 * 1024);
+        String json = switch (payload) {
+            case "small-valid" -> "{\"id\":\"1\",\"message\":\"hallo\",\"version\":1}";
+            case "large-valid" -> "{\"id\":\"1\",\"message\":\"" + large + "\",\"version\":1}";
+            // Verletzung nach wenigen Bytes, danach ein großer Rest
+            case "large-invalid-extra-field" -> "{\"evil\":true,\"id\":\"1\",\"message\":\"" + large + "\",\"version\":1}";
+            // Verletzung erst am Ende des Payloads
+            case "large-invalid-version-type" -> "{\"id\":\"1\",\"message\":\"" + large + "\",\"version\":\"1\"}";
+            default -> throw new IllegalArgumentException(payload);
+        };
+        data = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object treeBased() {
+        try {
+            JsonNode tree = mapper.readTree(data);
+            jsonSchema.validate(tree);
+            return mapper.treeToValue(tree, MyKafkaMessage.class);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object streaming() {
+        try {
+            validator.validate(data, 0, data.length);
+            return reader.readValue(data);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(StreamingValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,145 @@
+package de.jwiegmann.registry.poc.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.upcast.MyKafkaMessageUpcaster;
+import de.jwiegmann.registry.poc.upcast.UpcastProperties;
+import de.jwiegmann.registry.poc.validation.StreamingJsonSchemaValidator;
+import de.jwiegmann.registry.poc.validation.StreamingValidationLimits;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kosten je Record für gemischten Verkehr aus drei Schema-Versionen: aktuelle Version, eine ältere mit
+ * umbenanntem ({@code msg}) und entfallenem ({@code status}) Feld ohne {@code version}, und eine, in der
+ * {@code version} als String übertragen wird.
+ * <p>
+ * Beide Varianten validieren identisch per {@link StreamingJsonSchemaValidator}; verglichen wird nur die Abbildung:
+ * {@code treeMapping} liest einen {@code JsonNode}-Baum und bildet ihn mit Alias- und Typ-Fallbacks ab (der
+ * bisherige Ad-hoc-Weg), {@code upcasting} wendet den je Schema-ID kompilierten Plan des
+ * {@link MyKafkaMessageUpcaster} token-weise an. Ausführen mit:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=de.jwiegmann.registry.poc.benchmark.UpcastingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpcastingBenchmark {
+
+    private static final String CURRENT = """
+            {"type":"object","additionalProperties":false,"properties":{
+              "id":{"oneOf":[{"type":"null"},{"type":"string"}]},
+              "message":{"oneOf":[{"type":"null"},{"type":"string"}]},
+              "version":{"type":"integer","minimum":1}},"required":["version"]}""";
+    private static final String RENAMED = """
+            {"type":"object","additionalProperties":false,"properties":{
+              "id":{"type":"string"},"msg":{"type":"string"},"status":{"type":"string"}}}""";
+    private static final String VERSION_AS_STRING = """
+            {"type":"object","additionalProperties":false,"properties":{
+              "id":{"type":"string"},"message":{"type":"string"},"version":{"type":"string"}}}""";
+
+    /**
+     * Anteil der Records in der aktuellen Version in Prozent; der Rest verteilt sich auf die älteren Versionen.
+     */
+    @Param({"100", "50", "0"})
+    public int currentPercent;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<byte[]> records = new ArrayList<>();
+    private final Map<Integer, StreamingJsonSchemaValidator> validators = new HashMap<>();
+    private SchemaRegistryClient client;
+    private MyKafkaMessageUpcaster upcaster;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        client = new MockSchemaRegistryClient(List.of(new JsonSchemaProvider()));
+        int currentId = register("current", CURRENT);
+        int renamedId = register("renamed", RENAMED);
+        int stringVersionId = register("string-version", VERSION_AS_STRING);
+
+        upcaster = new MyKafkaMessageUpcaster(
+                new UpcastProperties(true, Map.of("msg", "message"), Map.of("version", "1")));
+
+        for (int i = 0; i < 100; i++) {
+            String text = "Nachricht " + i;
+            if (i < currentPercent) {
+                records.add(frame(currentId, "{\"id\":\"" + i + "\",\"message\":\"" + text + "\",\"version\":2}"));
+            } else if (i % 2 == 0) {
+                records.add(frame(renamedId, "{\"id\":\"" + i + "\",\"msg\":\"" + text + "\",\"status\":\"NEU\"}"));
+            } else {
+                records.add(frame(stringVersionId, "{\"id\":\"" + i + "\",\"message\":\"" + text + "\",\"version\":\"2\"}"));
+            }
+        }
+    }
+
+    @Benchmark
+    public MyKafkaMessage upcasting() {
+        byte[] data = nextRecord();
+        int schemaId = validate(data);
+        return upcaster.read(upcaster.planFor(schemaId, client), data, 5, data.length - 5);
+    }
+
+    @Benchmark
+    public MyKafkaMessage treeMapping() throws Exception {
+        byte[] data = nextRecord();
+        validate(data);
+        JsonNode tree = mapper.readTree(data, 5, data.length - 5);
+        JsonNode message = tree.has("message") ? tree.get("message") : tree.path("msg");
+        JsonNode version = tree.path("version");
+        return new MyKafkaMessage(
+                tree.path("id").isNull() || tree.path("id").isMissingNode() ? null : tree.path("id").asText(),
+                message.isNull() || message.isMissingNode() ? null : message.asText(),
+                version.isMissingNode() || version.isNull() ? 1
+                        : version.isTextual() ? Integer.parseInt(version.asText().trim()) : version.asInt());
+    }
+
+    private byte[] nextRecord() {
+        byte[] data = records.get(next);
+        next = next + 1 == records.size() ? 0 : next + 1;
+        return data;
+    }
+
+    private int validate(byte[] data) {
+        int schemaId = ByteBuffer.wrap(data, 1, 4).getInt();
+        validators.get(schemaId).validate(data, 5, data.length - 5);
+        return schemaId;
+    }
+
+    private int register(String subject, String schema) throws Exception {
+        int id = client.register(subject, new JsonSchema(schema));
+        validators.put(id, StreamingJsonSchemaValidator
+                .compile(mapper.readTree(schema), StreamingValidationLimits.DEFAULTS).orElseThrow());
+        return id;
+    }
+
+    private static byte[] frame(int schemaId, String json) {
+        byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(5 + payload.length).put((byte) 0).putInt(schemaId).put(payload).array();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(UpcastingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,122 @@
+package de.jwiegmann.registry.poc.compression;
+
+import de.jwiegmann.registry.poc.control.dto.PayloadSizeStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-Tests für Größen-Histogramme und die Profilauswahl je Topic.
+ */
+class CompressionSelectorTest {
+
+    private final PayloadSizeHistograms histograms = new PayloadSizeHistograms(new SimpleMeterRegistry());
+
+    @Test
+    void shouldEstimatePercentilesAsBucketUpperBound() {
+        for (int i = 0; i < 90; i++) {
+            histograms.record("t", 100);
+        }
+        for (int i = 0; i < 10; i++) {
+            histograms.record("t", 5_000);
+        }
+
+        PayloadSizeStats stats = histograms.stats("t").orElseThrow();
+        assertThat(stats.count()).isEqualTo(100);
+        assertThat(stats.p50()).isEqualTo(127);
+        assertThat(stats.p95()).isEqualTo(5_000);
+        assertThat(stats.max()).isEqualTo(5_000);
+        assertThat(histograms.stats("unbekannt")).isEmpty();
+    }
+
+    @Test
+    void shouldPickTierByMedianIncludingBatchSize() {
+        CompressionProperties properties = new CompressionProperties(true, 10, null, Map.of(), 0);
+
+        assertThat(CompressionSelector.select(new PayloadSizeStats("t", 100, 255, 511, 511, 600), properties.tiers()))
+                .isEqualTo(new CompressionProfile("lz4", 64 * 1024, Duration.ofMillis(10)));
+        assertThat(CompressionSelector.select(new PayloadSizeStats("t", 100, 4095, 524_287, 524_287, 500_000), properties.tiers()))
+                .isEqualTo(new CompressionProfile("zstd", 256 * 1024, Duration.ofMillis(10)));
+        assertThat(CompressionSelector.select(new PayloadSizeStats("t", 100, 262_143, 4_194_303, 4_194_303, 3_000_000), properties.tiers()))
+                .isEqualTo(new CompressionProfile("zstd", CompressionProperties.MAX_BATCH_SIZE, Duration.ZERO));
+    }
+
+    @Test
+    void shouldDecideOnlyAfterMinSamplesAndHonourFixedProfiles() {
+        CompressionProfile fixed = new CompressionProfile("snappy", 32_768, Duration.ofMillis(5));
+        CompressionSelector selector = new CompressionSelector(histograms,
+                new CompressionProperties(true, 10, null, Map.of("fest", fixed), 0));
+
+        for (int i = 0; i < 9; i++) {
+            histograms.record("klein", 50);
+        }
+        selector.evaluate();
+        assertThat(selector.profileFor("klein")).isNull();
+
+        histograms.record("klein", 50);
+        selector.evaluate();
+        assertThat(selector.profileFor("klein").compressionType()).isEqualTo("lz4");
+        assertThat(selector.profileFor("fest")).isEqualTo(fixed);
+    }
+
+    @Test
+    void shouldSwitchOnlyAfterRepeatedConfirmation() {
+        CompressionSelector selector = new CompressionSelector(histograms,
+                new CompressionProperties(true, 10, null, Map.of(), 2));
+        for (int i = 0; i < 10; i++) {
+            histograms.record("t", 100);
+        }
+        selector.evaluate();
+        CompressionProfile small = selector.profileFor("t");
+        assertThat(small.compressionType()).isEqualTo("lz4");
+
+        histograms.reset();
+        for (int i = 0; i < 10; i++) {
+            histograms.record("t", 10_000);
+        }
+        selector.evaluate();
+        assertThat(selector.profileFor("t")).isEqualTo(small);
+
+        selector.evaluate();
+        assertThat(selector.profileFor("t").compressionType()).isEqualTo("zstd");
+    }
+
+    @Test
+    void shouldForgetSizesOlderThanTwoWindows() {
+        for (int i = 0; i < 10; i++) {
+            histograms.record("t", 100);
+        }
+        histograms.rotate();
+        assertThat(histograms.stats("t").orElseThrow().count()).isEqualTo(10);
+
+        for (int i = 0; i < 10; i++) {
+            histograms.record("t", 10_000);
+        }
+        histograms.rotate();
+
+        PayloadSizeStats stats = histograms.stats("t").orElseThrow();
+        assertThat(stats.count()).isEqualTo(10);
+        assertThat(stats.p50()).isEqualTo(10_000);
+        assertThat(stats.max()).isEqualTo(10_000);
+    }
+
+    @Test
+    void shouldDeriveGaugesFromBucketsAndRemoveThemOnReset() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PayloadSizeHistograms histograms = new PayloadSizeHistograms(registry);
+        for (int i = 0; i < 10; i++) {
+            histograms.record("t", 100);
+        }
+
+        assertThat(registry.get("kafka.producer.payload.size").tag("quantile", "0.5").gauge().value())
+                .isEqualTo(100);
+        assertThat(registry.get("kafka.producer.payload.count").gauge().value()).isEqualTo(10);
+
+        histograms.reset();
+        assertThat(registry.getMeters()).isEmpty();
+    }
+}
@@ -3,35 +3,57 @@ package de.jwiegmann.registry.poc.control;
 import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.concurrent.TimeUnit;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
 @TestPropertySource(properties = "server.port=8080")
 public class AsyncApiTest extends TestBase {
 
+    private static final String URL = "http://localhost:8080/async_api.yaml";
+
     private final RestTemplate restTemplate = new RestTemplate();
 
     @Test
     public void printAsyncApiYamlToConsole() {
-        String url = "http://localhost:8080/async_api.yaml";
-
         await().atMost(5, TimeUnit.SECONDS).until(() -> {
             try {
-                return restTemplate.getForObject(url, String.class) != null;
+                return restTemplate.getForObject(URL, String.class) != null;
             } catch (Exception e) {
                 return false;
             }
         });
 
-        String asyncApiYaml = restTemplate.getForObject(url, String.class);
+        String asyncApiYaml = restTemplate.getForObject(URL, String.class);
 
         System.out.println("\n===== AsyncAPI YAML =====\n");
         System.out.println(asyncApiYaml);
         System.out.println("\n=========================\n");
+
+        assertThat(asyncApiYaml).contains("asyncapi: 2.6.0", "my-topic", "x-schema-registry");
+    }
+
+    @Test
+    public void answersNotModifiedForMatchingEtag() {
+        ResponseEntity<String> first = restTemplate.getForEntity(URL, String.class);
+        String etag = first.getHeaders().getETag();
+        assertThat(etag).isNotBlank();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> second = restTemplate.exchange(URL, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getBody()).isNull();
     }
-}
\ No newline at end of file
+}
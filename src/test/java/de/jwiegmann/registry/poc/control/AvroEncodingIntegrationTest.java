@@ -0,0 +1,59 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import de.jwiegmann.registry.poc.encoding.MyKafkaMessageAvroMapper;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * End-to-End-Test der Avro-Kodierung: {@code my-topic} wird per {@code kafka.encoding.topics} auf Avro
+ * umgestellt, der Consumer erkennt den Schema-Typ anhand der Schema-ID und bildet den Record auf das DTO ab.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+@TestPropertySource(properties = {
+        "kafka.encoding.topics.my-topic=AVRO",
+        "kafka.group=avro-encoding-test-group"
+})
+public class AvroEncodingIntegrationTest extends TestBase {
+
+    @Autowired
+    private KafkaTemplate<String, MyKafkaMessage> kafkaTemplate;
+
+    @Autowired
+    private KafkaConsumerService consumerService;
+
+    /**
+     * Registriert das Avro-Schema unter seinem vollen Namen (RecordNameStrategy).
+     */
+    @BeforeAll
+    public static void registerAvroSchema() throws Exception {
+        SchemaRegistryClient client = new CachedSchemaRegistryClient(
+                SCHEMA_REGISTRY_CONTAINER.getLocalSchemaRegistryUrl(), 10);
+        client.register(MyKafkaMessageAvroMapper.SCHEMA.getFullName(), new AvroSchema(MyKafkaMessageAvroMapper.SCHEMA));
+    }
+
+    @Test
+    public void shouldProduceAndConsumeAvroEncodedMessages() {
+        MyKafkaMessage message = new MyKafkaMessage("a1", "Avro-kodiert", 1);
+
+        kafkaTemplate.send("my-topic", message);
+
+        await().atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(consumerService.getValidMessages())
+                        .usingRecursiveFieldByFieldElementComparator()
+                        .contains(message));
+    }
+}
@@ -0,0 +1,133 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.DeadLetterReprocessingRequest;
+import de.jwiegmann.registry.poc.control.dto.DeadLetterReprocessingSummary;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Integrationstest für Dead-Letter-Topic und {@link DeadLetterReprocessor}: Abgelehnte Records landen im DLQ,
+ * beim Wiederaufbereiten werden gültige Records zurückgeschrieben und die übrigen nach Fehlergrund gezählt.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+@TestPropertySource(properties = {
+        "kafka.dead-letter.enabled=true",
+        "kafka.group=dead-letter-test-group"
+})
+public class DeadLetterIntegrationTest extends TestBase {
+
+    @Autowired
+    private KafkaTemplate<String, MyKafkaMessage> kafkaTemplate;
+
+    @Autowired
+    private DeadLetterPublisher deadLetterPublisher;
+
+    @Autowired
+    private DeadLetterReprocessor reprocessor;
+
+    @Test
+    public void shouldWriteRejectedRecordsToDeadLetterTopic() {
+        String id = UUID.randomUUID().toString();
+        kafkaTemplate.send("my-topic", id, new MyKafkaMessage(id, "Ungültige Version", 0));
+
+        try (KafkaConsumer<byte[], byte[]> consumer = rawConsumer()) {
+            consumer.subscribe(List.of("my-topic.DLT"));
+            List<ConsumerRecord<byte[], byte[]>> found = new ArrayList<>();
+            await().atMost(15, TimeUnit.SECONDS).untilAsserted(() -> {
+                consumer.poll(Duration.ofMillis(200)).forEach(record -> {
+                    if (new String(record.value(), StandardCharsets.UTF_8).contains(id)) {
+                        found.add(record);
+                    }
+                });
+                assertThat(found).isNotEmpty();
+            });
+            assertThat(found.get(0).key()).isEqualTo(id.getBytes(StandardCharsets.UTF_8));
+            assertThat(found.get(0).headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC).value())
+                    .isEqualTo("my-topic".getBytes(StandardCharsets.UTF_8));
+            assertThat(found.get(0).headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET)).isNotNull();
+            assertThat(found.get(0).headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_PARTITION)).isNotNull();
+            assertThat(new String(found.get(0).headers().lastHeader(DeadLetterPublisher.VIOLATIONS_HEADER).value(),
+                    StandardCharsets.UTF_8)).contains("#/version");
+        }
+    }
+
+    @Test
+    public void shouldRepublishRecordsThatNowPassAndSummarizeRemainingFailures() {
+        String deadLetterTopic = "reprocess-test.DLT";
+        String targetTopic = "reprocess-test-" + UUID.randomUUID();
+        publishRaw(deadLetterTopic, targetTopic, "ok", "{\"id\":\"ok\",\"message\":\"gültig\",\"version\":1}");
+        publishRaw(deadLetterTopic, targetTopic, "nok", "{\"id\":\"nok\",\"message\":\"ungültig\",\"version\":0}");
+        publishRaw(deadLetterTopic, targetTopic, "nok2", "{\"id\":\"nok2\",\"message\":\"ungültig\",\"version\":-3}");
+        deadLetterPublisher.flush();
+
+        DeadLetterReprocessingRequest request =
+                new DeadLetterReprocessingRequest(deadLetterTopic, null, null, null, null, null, null, 2, 10);
+        DeadLetterReprocessingSummary summary = reprocessor.reprocess(request);
+
+        assertThat(summary.read()).isEqualTo(3);
+        assertThat(summary.republished()).isEqualTo(1);
+        assertThat(summary.stillFailing()).isEqualTo(2);
+        assertThat(summary.failureReasons()).containsExactly(Map.entry("#/version (minimum)", 2L));
+
+        try (KafkaConsumer<byte[], byte[]> consumer = rawConsumer()) {
+            consumer.subscribe(List.of(targetTopic));
+            List<ConsumerRecord<byte[], byte[]>> republished = new ArrayList<>();
+            await().atMost(15, TimeUnit.SECONDS).untilAsserted(() -> {
+                consumer.poll(Duration.ofMillis(200)).forEach(republished::add);
+                assertThat(republished).hasSize(1);
+            });
+            byte[] value = republished.get(0).value();
+            assertThat(ByteBuffer.wrap(value, 1, 4).getInt()).isEqualTo(summary.schemaId());
+            assertThat(new String(value, 5, value.length - 5, StandardCharsets.UTF_8)).contains("\"ok\"");
+            assertThat(republished.get(0).key()).isEqualTo("ok".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Zweiter Lauf setzt an der committeten Position fort: nur die ans DLQ-Ende gehängten Fehlschläge
+        DeadLetterReprocessingSummary rerun = reprocessor.reprocess(request);
+        assertThat(rerun.read()).isEqualTo(2);
+        assertThat(rerun.republished()).isZero();
+        assertThat(rerun.stillFailing()).isEqualTo(2);
+    }
+
+    private void publishRaw(String deadLetterTopic, String originalTopic, String key, String json) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, originalTopic.getBytes(StandardCharsets.UTF_8));
+        // Veraltete Schema-ID 999 – beim Zurückschreiben wird die ID der gewählten Version gesetzt
+        byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+        byte[] value = ByteBuffer.allocate(5 + payload.length).put((byte) 0).putInt(999).put(payload).array();
+        deadLetterPublisher.send(new ProducerRecord<>(deadLetterTopic, null,
+                key.getBytes(StandardCharsets.UTF_8), value, headers));
+    }
+
+    private static KafkaConsumer<byte[], byte[]> rawConsumer() {
+        return new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA_CONTAINER.getBootstrapServers(),
+                ConsumerConfig.GROUP_ID_CONFIG, "dead-letter-verifier-" + UUID.randomUUID(),
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"),
+                new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    }
+}
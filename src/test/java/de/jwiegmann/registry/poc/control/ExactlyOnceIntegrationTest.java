@@ -0,0 +1,77 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * End-to-End-Test der transaktionalen Strecke ({@code kafka.exactly-once.enabled=true}): Jede Nachricht aus
+ * {@code my-topic} erscheint genau einmal im Ziel-Topic, mehrere Records teilen sich eine Transaktion.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+@TestPropertySource(properties = {
+        "kafka.group=exactly-once-test-group",
+        "kafka.exactly-once.enabled=true",
+        "kafka.exactly-once.output-topic=my-topic-exactly-once",
+        "kafka.exactly-once.batch-max-records=50"
+})
+public class ExactlyOnceIntegrationTest extends TestBase {
+
+    private static final int MESSAGES = 120;
+
+    @Autowired
+    private KafkaTemplate<String, MyKafkaMessage> kafkaTemplate;
+
+    @Autowired
+    private ConsumerFactory<String, MyKafkaMessage> consumerFactory;
+
+    @Autowired
+    private ExactlyOnceRepublisher republisher;
+
+    @Test
+    public void shouldRepublishEveryMessageExactlyOnceInBatches() {
+        String prefix = UUID.randomUUID() + "-";
+        for (int i = 0; i < MESSAGES; i++) {
+            kafkaTemplate.send("my-topic", new MyKafkaMessage(prefix + i, "Exactly once", 1));
+        }
+        kafkaTemplate.flush();
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        List<String> republishedIds = new ArrayList<>();
+        try (Consumer<String, MyKafkaMessage> consumer =
+                     consumerFactory.createConsumer("exactly-once-verifier", null, null, overrides)) {
+            consumer.subscribe(List.of("my-topic-exactly-once"));
+            await().atMost(30, TimeUnit.SECONDS).untilAsserted(() -> {
+                for (ConsumerRecord<String, MyKafkaMessage> record : consumer.poll(Duration.ofMillis(200))) {
+                    if (record.value() != null && record.value().getId().startsWith(prefix)) {
+                        republishedIds.add(record.value().getId());
+                    }
+                }
+                assertThat(republishedIds).hasSizeGreaterThanOrEqualTo(MESSAGES);
+            });
+        }
+
+        assertThat(republishedIds).doesNotHaveDuplicates().hasSize(MESSAGES);
+        assertThat(republisher.getCommittedTransactions()).isLessThan(republisher.getCommittedRecords());
+        assertThat(republisher.getAbortedTransactions()).isZero();
+    }
+}
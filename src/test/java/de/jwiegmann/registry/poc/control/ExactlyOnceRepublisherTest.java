@@ -0,0 +1,118 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockConsumerFactory;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Unit-Tests für den {@link ExactlyOnceRepublisher} mit {@link MockConsumer} und {@link MockProducer}.
+ */
+class ExactlyOnceRepublisherTest {
+
+    private static final String INPUT = "in";
+    private static final TopicPartition PARTITION = new TopicPartition(INPUT, 0);
+
+    private final MockConsumer<String, MyKafkaMessage> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    // Das Template schließt den Producer nach jeder Transaktion – je Transaktion ein neuer MockProducer
+    private final List<MockProducer<String, MyKafkaMessage>> producers = new CopyOnWriteArrayList<>();
+
+    @Test
+    void shouldDropRestOfPollWhenTransactionAborts() {
+        ExactlyOnceRepublisher republisher = republisher(2, 1);
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+            addRecords(0, 4);
+        });
+        // Nach dem Abbruch der ersten Transaktion liefert der Broker ab dem zurückgesetzten Offset erneut
+        consumer.schedulePollTask(() -> addRecords(0, 4));
+
+        republisher.start();
+        try {
+            await().atMost(10, TimeUnit.SECONDS).until(() -> republisher.getCommittedRecords() >= 4);
+        } finally {
+            republisher.stop();
+        }
+
+        List<Long> committedOffsets = producers.stream()
+                .flatMap(p -> p.consumerGroupOffsetsHistory().stream())
+                .map(byGroup -> byGroup.values().iterator().next().get(PARTITION))
+                .map(OffsetAndMetadata::offset)
+                .toList();
+        List<String> republishedIds = producers.stream()
+                .flatMap(p -> p.history().stream())
+                .map(ProducerRecord::value)
+                .map(MyKafkaMessage::getId)
+                .toList();
+
+        assertThat(committedOffsets).containsExactly(2L, 4L);
+        assertThat(republishedIds).containsExactly("0", "1", "2", "3");
+        assertThat(republisher.getAbortedTransactions()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountInvalidRecordsAsSkipped() {
+        ExactlyOnceRepublisher republisher = republisher(3, 0);
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+            addRecords(0, 2);
+            consumer.addRecord(new ConsumerRecord<>(INPUT, 0, 2, "2", null));
+        });
+
+        republisher.start();
+        try {
+            await().atMost(10, TimeUnit.SECONDS).until(() -> republisher.getCommittedRecords() >= 3);
+        } finally {
+            republisher.stop();
+        }
+
+        assertThat(republisher.getSkippedRecords()).isEqualTo(1);
+        assertThat(producers.get(0).history()).hasSize(2);
+    }
+
+    private ExactlyOnceRepublisher republisher(int batchMaxRecords, int failingTransactions) {
+        MockProducerFactory<String, MyKafkaMessage> producerFactory = new MockProducerFactory<>((tx, id) -> {
+            MockProducer<String, MyKafkaMessage> producer =
+                    new MockProducer<>(true, new StringSerializer(), (topic, value) -> new byte[0]);
+            producer.initTransactions();
+            if (producers.size() < failingTransactions) {
+                producer.sendOffsetsToTransactionException = new KafkaException("Transaktion fehlgeschlagen");
+            }
+            producers.add(producer);
+            return producer;
+        }, "tx-");
+        ExactlyOnceProperties properties = new ExactlyOnceProperties(true, INPUT, "out", "group", "tx-",
+                batchMaxRecords, Duration.ofSeconds(10));
+        return new ExactlyOnceRepublisher(new MockConsumerFactory<>(() -> consumer),
+                new KafkaTemplate<>(producerFactory), properties, UnaryOperator.identity());
+    }
+
+    private void addRecords(int from, int to) {
+        for (int offset = from; offset < to; offset++) {
+            String id = String.valueOf(offset);
+            consumer.addRecord(new ConsumerRecord<>(INPUT, 0, offset, id, new MyKafkaMessage(id, "m", 1)));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import de.jwiegmann.registry.poc.validation.StreamingValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * End-to-End-Test des allokationsarmen {@code MyKafkaMessageSerializer}
+ * ({@code schema.serialization.pooled.enabled=true}): Der Standard-Deserializer muss das erzeugte
+ * Wire-Format lesen können, ungültige Nachrichten dürfen gar nicht erst gesendet werden.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+@TestPropertySource(properties = {
+        "schema.serialization.pooled.enabled=true",
+        "kafka.group=pooled-serialization-test-group"
+})
+public class PooledSerializationIntegrationTest extends TestBase {
+
+    @Autowired
+    private KafkaTemplate<String, MyKafkaMessage> kafkaTemplate;
+
+    @Autowired
+    private KafkaConsumerService consumerService;
+
+    @BeforeEach
+    void cleanupMessages() {
+        consumerService.clearMessages();
+    }
+
+    @Test
+    public void shouldProduceMessagesReadableByStandardDeserializer() {
+        MyKafkaMessage validMessage = new MyKafkaMessage("p1", "Aus dem Puffer-Pool", 1);
+
+        kafkaTemplate.send("my-topic", validMessage);
+
+        await().atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(consumerService.getValidMessages())
+                        .usingRecursiveFieldByFieldElementComparator()
+                        .contains(validMessage));
+    }
+
+    @Test
+    public void shouldRejectInvalidMessageBeforeSending() {
+        MyKafkaMessage invalidMessage = new MyKafkaMessage("p2", "Ungültige Version", 0);
+
+        assertThatThrownBy(() -> kafkaTemplate.send("my-topic", invalidMessage))
+                .hasRootCauseInstanceOf(StreamingValidationException.class);
+    }
+}
@@ -0,0 +1,63 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.SchemaChangedEvent;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Integrationstest für den {@link SchemaRegistryWatcher}: Eine Registrierung über die REST-API muss über das
+ * {@code _schemas}-Topic gemeldet werden und im gemeinsamen Client sofort als neueste Version sichtbar sein.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+@TestPropertySource(properties = {
+        "schema.registry.watch.enabled=true",
+        "kafka.group=schema-watcher-test-group"
+})
+public class SchemaRegistryWatcherIntegrationTest extends TestBase {
+
+    private static final String SUBJECT = "watcher-test-subject";
+
+    @Autowired
+    private SchemaRegistryWatcher watcher;
+
+    @Autowired
+    private SchemaRegistryClient schemaRegistryClient;
+
+    @Test
+    public void shouldReportRegistrationAndRefreshLatestVersion() throws Exception {
+        List<SchemaChangedEvent> changes = new CopyOnWriteArrayList<>();
+        watcher.addListener(changes::add);
+        await().atMost(10, TimeUnit.SECONDS).until(watcher::isRunning);
+        schemaRegistryClient.updateCompatibility(SUBJECT, "NONE");
+
+        int firstId = schemaRegistryClient.register(SUBJECT, new JsonSchema("{\"type\":\"object\"}"));
+        await().atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(changes).contains(new SchemaChangedEvent(SUBJECT, 1, firstId, false)));
+        assertThat(schemaRegistryClient.getLatestSchemaMetadata(SUBJECT).getVersion()).isEqualTo(1);
+
+        // Zweite Version von außen registrieren – der gecachte "latest"-Eintrag muss verworfen werden
+        int secondId = registerExternally("{\"type\":\"object\",\"properties\":{\"a\":{\"type\":\"string\"}}}");
+        await().atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(changes).contains(new SchemaChangedEvent(SUBJECT, 2, secondId, false)));
+        assertThat(schemaRegistryClient.getLatestSchemaMetadata(SUBJECT).getId()).isEqualTo(secondId);
+    }
+
+    private static int registerExternally(String schema) throws Exception {
+        SchemaRegistryClient external = new CachedSchemaRegistryClient(
+                SCHEMA_REGISTRY_CONTAINER.getLocalSchemaRegistryUrl(), 10);
+        return external.register(SUBJECT, new JsonSchema(schema));
+    }
+}
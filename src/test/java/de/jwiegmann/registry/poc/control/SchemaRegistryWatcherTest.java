@@ -0,0 +1,47 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.SchemaChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-Tests für das Auswerten der Records im {@code _schemas}-Topic.
+ */
+class SchemaRegistryWatcherTest {
+
+    private static final String SCHEMA_KEY = "{\"keytype\":\"SCHEMA\",\"subject\":\"s\",\"version\":2,\"magic\":1}";
+
+    @Test
+    void shouldParseRegisteredSchema() {
+        String value = "{\"subject\":\"s\",\"version\":2,\"id\":7,\"schemaType\":\"JSON\",\"schema\":\"{}\",\"deleted\":false}";
+
+        assertThat(SchemaRegistryWatcher.parse(bytes(SCHEMA_KEY), bytes(value)))
+                .contains(new SchemaChangedEvent("s", 2, 7, false));
+    }
+
+    @Test
+    void shouldParseSoftAndHardDeletes() {
+        String softDeleted = "{\"subject\":\"s\",\"version\":2,\"id\":7,\"schema\":\"{}\",\"deleted\":true}";
+
+        assertThat(SchemaRegistryWatcher.parse(bytes(SCHEMA_KEY), bytes(softDeleted)))
+                .contains(new SchemaChangedEvent("s", 2, 7, true));
+        assertThat(SchemaRegistryWatcher.parse(bytes(SCHEMA_KEY), null))
+                .contains(new SchemaChangedEvent("s", 2, SchemaTrafficTracker.UNKNOWN_SCHEMA_ID, true));
+    }
+
+    @Test
+    void shouldIgnoreOtherRecordTypes() {
+        assertThat(SchemaRegistryWatcher.parse(bytes("{\"keytype\":\"NOOP\",\"magic\":0}"), null)).isEmpty();
+        assertThat(SchemaRegistryWatcher.parse(
+                bytes("{\"keytype\":\"CONFIG\",\"subject\":\"s\",\"magic\":0}"),
+                bytes("{\"compatibilityLevel\":\"FORWARD\"}"))).isEmpty();
+        assertThat(SchemaRegistryWatcher.parse(bytes("kein json"), null)).isEmpty();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
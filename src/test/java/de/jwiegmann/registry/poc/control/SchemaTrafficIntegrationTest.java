@@ -0,0 +1,74 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.dto.SchemaTrafficStats;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Integrationstest für den {@link SchemaTrafficTracker}.
+ * <p>
+ * Prüft, dass gültige und ungültige Records ihrer Schema-Version zugeordnet werden
+ * und die Version anschließend als "zuletzt gesehen" abgefragt werden kann.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+public class SchemaTrafficIntegrationTest extends TestBase {
+
+    @Autowired
+    private KafkaTemplate<String, MyKafkaMessage> kafkaTemplate;
+
+    @Autowired
+    private SchemaTrafficTracker tracker;
+
+    @BeforeEach
+    void resetTracker() {
+        tracker.reset();
+    }
+
+    @Test
+    public void shouldCountRecordsAndFailuresPerSchemaVersion() {
+        kafkaTemplate.send("my-topic", new MyKafkaMessage("1", "gültig", 1));
+        kafkaTemplate.send("my-topic", new MyKafkaMessage("2", "ungültig", -1));
+
+        await().atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> {
+                    tracker.merge();
+                    assertThat(tracker.getSnapshot())
+                            .filteredOn(stats -> SUBJECT_NAME.equals(stats.subject()))
+                            .singleElement()
+                            .satisfies(stats -> {
+                                assertThat(stats.topic()).isEqualTo("my-topic");
+                                assertThat(stats.version()).isEqualTo(1);
+                                assertThat(stats.records()).isGreaterThanOrEqualTo(2);
+                                assertThat(stats.failures()).isGreaterThanOrEqualTo(1);
+                                assertThat(stats.bytes()).isPositive();
+                            });
+                });
+
+        assertThat(tracker.lastSeen(SUBJECT_NAME, 1)).isPresent();
+        assertThat(tracker.lastSeen(SUBJECT_NAME, 99)).isEmpty();
+    }
+
+    @Test
+    public void shouldExposeSnapshotAsStatsRecords() {
+        kafkaTemplate.send("my-topic", new MyKafkaMessage("3", "gültig", 1));
+
+        await().atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> {
+                    tracker.merge();
+                    assertThat(tracker.getSnapshot())
+                            .extracting(SchemaTrafficStats::schemaId)
+                            .isNotEmpty()
+                            .doesNotContain(SchemaTrafficTracker.UNKNOWN_SCHEMA_ID);
+                });
+    }
+}
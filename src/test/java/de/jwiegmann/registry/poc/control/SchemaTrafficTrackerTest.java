@@ -0,0 +1,75 @@
+package de.jwiegmann.registry.poc.control;
+
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.entities.SubjectVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-Tests für den {@link SchemaTrafficTracker}: Auflösung der Schema-IDs nur im Merge, keine gecachten
+ * Leer-Antworten, Entfernen der Meter beim Zurücksetzen.
+ */
+class SchemaTrafficTrackerTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private volatile List<SubjectVersion> versions = List.of();
+
+    private final MockSchemaRegistryClient client = new MockSchemaRegistryClient() {
+        @Override
+        public Collection<SubjectVersion> getAllVersionsById(int id) {
+            lookups.incrementAndGet();
+            return versions;
+        }
+    };
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SchemaTrafficTracker tracker = new SchemaTrafficTracker(client, meterRegistry);
+
+    @Test
+    void shouldAnswerLastSeenWithoutRegistryLookups() {
+        versions = List.of(new SubjectVersion("s", 1));
+        tracker.recordSuccess("t", 7, 10);
+
+        assertThat(tracker.lastSeen("s", 1)).isEmpty();
+        assertThat(lookups).hasValue(0);
+
+        tracker.merge();
+        assertThat(tracker.lastSeen("s", 1)).isPresent();
+        assertThat(tracker.lastSeen("s", 2)).isEmpty();
+        assertThat(lookups).hasValue(1);
+    }
+
+    @Test
+    void shouldRetryEmptyResolution() {
+        tracker.recordSuccess("t", 7, 10);
+        tracker.merge();
+        assertThat(tracker.getSnapshot()).singleElement().satisfies(stats -> assertThat(stats.subject()).isNull());
+
+        versions = List.of(new SubjectVersion("s", 1));
+        tracker.merge();
+
+        assertThat(tracker.getSnapshot()).singleElement().satisfies(stats -> assertThat(stats.subject()).isEqualTo("s"));
+        assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    void shouldRemoveMetersOnReset() {
+        versions = List.of(new SubjectVersion("s", 1));
+        tracker.recordSuccess("t", 7, 10);
+        tracker.merge();
+        assertThat(meterRegistry.find("schema.traffic.records").functionCounter().count()).isEqualTo(1);
+
+        tracker.reset();
+
+        assertThat(meterRegistry.getMeters()).isEmpty();
+        tracker.recordSuccess("t", 7, 10);
+        tracker.merge();
+        assertThat(meterRegistry.find("schema.traffic.records").functionCounter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,74 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.MyKafkaMessageSerializer;
+import de.jwiegmann.registry.poc.SchemaTrafficTrackingDeserializer;
+import de.jwiegmann.registry.poc.StreamingJsonSchemaDeserializer;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
+import io.confluent.kafka.serializers.subject.RecordNameStrategy;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prüft, dass der gemeinsame {@link SchemaRegistryClient} aus der {@code KafkaConfig} JSON-Schema-IDs auflösen
+ * kann – er wird in alle JSON-Deserializer gereicht und ersetzt deren eigenen Client.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+public class SharedSchemaRegistryClientIntegrationTest extends TestBase {
+
+    @Autowired
+    private SchemaRegistryClient schemaRegistryClient;
+
+    @Test
+    public void shouldResolveJsonSchemaById() throws Exception {
+        int id = schemaRegistryClient.getLatestSchemaMetadata(SUBJECT_NAME).getId();
+
+        assertThat(schemaRegistryClient.getSchemaById(id)).isInstanceOf(JsonSchema.class);
+    }
+
+    @Test
+    public void shouldDeserializeJsonRecordThroughSharedClient() {
+        MyKafkaMessage message = new MyKafkaMessage("c1", "Gemeinsamer Client", 1);
+        byte[] record = serialize(message);
+
+        try (Deserializer<MyKafkaMessage> tracking = configure(new SchemaTrafficTrackingDeserializer<>());
+             Deserializer<MyKafkaMessage> streaming = configure(new StreamingJsonSchemaDeserializer<>())) {
+            assertThat(tracking.deserialize("my-topic", record)).usingRecursiveComparison().isEqualTo(message);
+            assertThat(streaming.deserialize("my-topic", record)).usingRecursiveComparison().isEqualTo(message);
+        }
+    }
+
+    private byte[] serialize(MyKafkaMessage message) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("schema.registry.url", SCHEMA_REGISTRY_CONTAINER.getLocalSchemaRegistryUrl());
+        configs.put("auto.register.schemas", false);
+        configs.put("use.latest.version", true);
+        configs.put("value.subject.name.strategy", RecordNameStrategy.class);
+        try (KafkaJsonSchemaSerializer<MyKafkaMessage> serializer = new KafkaJsonSchemaSerializer<>()) {
+            serializer.configure(configs, false);
+            return serializer.serialize("my-topic", message);
+        }
+    }
+
+    private Deserializer<MyKafkaMessage> configure(Deserializer<MyKafkaMessage> deserializer) {
+        Map<String, Object> configs = new HashMap<>();
+        // Bewusst eine nicht erreichbare URL: der Deserializer darf nur den gemeinsamen Client verwenden
+        configs.put("schema.registry.url", "http://unused:8081");
+        configs.put(MyKafkaMessageSerializer.SCHEMA_REGISTRY_CLIENT_CONFIG, schemaRegistryClient);
+        configs.put("specific.json.reader", true);
+        configs.put("json.value.type", MyKafkaMessage.class.getName());
+        configs.put("json.fail.invalid.schema", true);
+        deserializer.configure(configs, false);
+        return deserializer;
+    }
+}
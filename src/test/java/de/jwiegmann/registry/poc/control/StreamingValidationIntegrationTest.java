@@ -0,0 +1,55 @@
+package de.jwiegmann.registry.poc.control;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import de.jwiegmann.registry.poc.control.testcontainers.TestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * End-to-End-Test des Consumers mit aktivierter Streaming-Validierung
+ * ({@code schema.validation.streaming.enabled=true}).
+ * <p>
+ * Eigene Consumer-Group, damit sich dieser Context die Partition nicht mit anderen Test-Contexts teilt.
+ */
+@SpringBootTest(classes = de.jwiegmann.registry.poc.KafkaSchemaRegistryPocApplication.class)
+@TestPropertySource(properties = {
+        "schema.validation.streaming.enabled=true",
+        "kafka.group=streaming-validation-test-group"
+})
+public class StreamingValidationIntegrationTest extends TestBase {
+
+    @Autowired
+    private KafkaTemplate<String, MyKafkaMessage> kafkaTemplate;
+
+    @Autowired
+    private KafkaConsumerService consumerService;
+
+    @BeforeEach
+    void cleanupMessages() {
+        consumerService.clearMessages();
+    }
+
+    @Test
+    public void shouldAcceptValidAndRejectInvalidMessages() {
+        MyKafkaMessage validMessage = new MyKafkaMessage("s1", "Streaming-validiert", 1);
+        MyKafkaMessage invalidMessage = new MyKafkaMessage("s2", "Ungültige Version", -1);
+
+        kafkaTemplate.send("my-topic", invalidMessage);
+        kafkaTemplate.send("my-topic", validMessage);
+
+        await().atMost(10, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(consumerService.getValidMessages())
+                        .usingRecursiveFieldByFieldElementComparator()
+                        .contains(validMessage)
+                        .doesNotContain(invalidMessage));
+    }
+}
@@ -0,0 +1,41 @@
+package de.jwiegmann.registry.poc.encoding;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-Tests für {@link MyKafkaMessageAvroMapper}.
+ */
+class MyKafkaMessageAvroMapperTest {
+
+    @Test
+    void shouldRoundTripMessage() {
+        MyKafkaMessage message = MyKafkaMessageAvroMapper.fromRecord(
+                MyKafkaMessageAvroMapper.toRecord(new MyKafkaMessage("1", "hallo", 3)));
+
+        assertThat(message.getId()).isEqualTo("1");
+        assertThat(message.getMessage()).isEqualTo("hallo");
+        assertThat(message.getVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldUseDefaultVersionForOlderWriterSchema() {
+        // Älteres Writer-Schema ohne version-Feld, wie während einer Migration
+        Schema older = new Schema.Parser().parse("""
+                {"type":"record","name":"MyKafkaMessage","namespace":"de.jwiegmann.registry.poc.control.dto.avro",
+                 "fields":[{"name":"id","type":["null","string"],"default":null}]}""");
+        GenericRecord record = new GenericData.Record(older);
+        record.put("id", "1");
+
+        MyKafkaMessage message = MyKafkaMessageAvroMapper.fromRecord(record);
+
+        assertThat(message.getId()).isEqualTo("1");
+        assertThat(message.getMessage()).isNull();
+        assertThat(message.getVersion()).isEqualTo(MyKafkaMessageAvroMapper.DEFAULT_VERSION);
+    }
+}
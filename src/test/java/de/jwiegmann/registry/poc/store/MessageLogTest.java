@@ -0,0 +1,133 @@
+package de.jwiegmann.registry.poc.store;
+
+import de.jwiegmann.registry.poc.control.dto.LoggedMessage;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-Tests für das segmentierte Append-Log: Lesen per Offset und ID, Segmentwechsel, Wiederherstellung nach
+ * abgebrochenem Schreiben, Retention und Replay.
+ */
+class MessageLogTest {
+
+    private static final int REPLAY_MAX_RECORDS = 50;
+
+    @TempDir
+    Path directory;
+
+    private MessageLog messageLog;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (messageLog != null) {
+            messageLog.destroy();
+        }
+    }
+
+    @Test
+    void shouldReadAppendedMessagesByOffsetIdAndRecency() throws IOException {
+        messageLog = open(1024 * 1024, Long.MAX_VALUE, false);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(messageLog.append(new MyKafkaMessage("id-" + i, "Nachricht äöü " + i, 1))).isEqualTo(i);
+        }
+        messageLog.append(new MyKafkaMessage(null, null, 2));
+
+        assertThat(messageLog.read(42).orElseThrow().message().getMessage()).isEqualTo("Nachricht äöü 42");
+        assertThat(messageLog.findById("id-7").orElseThrow().offset()).isEqualTo(7);
+        assertThat(messageLog.findById("unbekannt")).isEmpty();
+        assertThat(messageLog.recent(3)).extracting(LoggedMessage::offset).containsExactly(98L, 99L, 100L);
+        MyKafkaMessage withNulls = messageLog.read(100).orElseThrow().message();
+        assertThat(withNulls.getId()).isNull();
+        assertThat(withNulls.getMessage()).isNull();
+        assertThat(withNulls.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRollSegmentsAndRecoverAfterTornWrite() throws IOException {
+        messageLog = open(1024, Long.MAX_VALUE, true);
+        for (int i = 0; i < 200; i++) {
+            messageLog.append(new MyKafkaMessage("id-" + i, "x".repeat(50), 1));
+        }
+        messageLog.destroy();
+        assertThat(segmentFiles()).hasSizeGreaterThan(10);
+
+        // Abgebrochenes Schreiben simulieren: halben Record an das letzte Segment anhängen
+        Path last = segmentFiles().get(segmentFiles().size() - 1);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 100, 1, 2, 3}));
+        }
+
+        messageLog = open(1024, Long.MAX_VALUE, true);
+        assertThat(messageLog.getNextOffset()).isEqualTo(200);
+        assertThat(messageLog.findById("id-150").orElseThrow().offset()).isEqualTo(150);
+        assertThat(messageLog.append(new MyKafkaMessage("id-200", "weiter", 1))).isEqualTo(200);
+
+        List<MyKafkaMessage> replayed = new ArrayList<>();
+        assertThat(messageLog.replay(replayed::add)).isEqualTo(REPLAY_MAX_RECORDS);
+        assertThat(replayed.get(0).getId()).isEqualTo("id-" + (201 - REPLAY_MAX_RECORDS));
+        assertThat(replayed.get(REPLAY_MAX_RECORDS - 1).getMessage()).isEqualTo("weiter");
+    }
+
+    @Test
+    void shouldReadActiveSegmentAcrossChunksAndLargeRecords() throws IOException {
+        messageLog = open(16 * 1024 * 1024, Long.MAX_VALUE, false);
+        for (int i = 0; i < 2_000; i++) {
+            messageLog.append(new MyKafkaMessage("id-" + i, "x".repeat(100), 1));
+        }
+        messageLog.append(new MyKafkaMessage("groß", "y".repeat(200_000), 1));
+        messageLog.append(new MyKafkaMessage("danach", "z", 1));
+
+        List<LoggedMessage> all = new ArrayList<>();
+        messageLog.read(0, Long.MAX_VALUE, all::add);
+
+        assertThat(all).extracting(LoggedMessage::offset).containsExactlyElementsOf(
+                Stream.iterate(0L, o -> o + 1).limit(2_002).toList());
+        assertThat(all.get(2_000).message().getMessage()).hasSize(200_000);
+        assertThat(messageLog.read(2_001).orElseThrow().message().getId()).isEqualTo("danach");
+    }
+
+    @Test
+    void shouldDeleteOldestSegmentsBeyondRetentionBytes() throws IOException {
+        messageLog = open(1024, 4096, false);
+        for (int i = 0; i < 200; i++) {
+            messageLog.append(new MyKafkaMessage("id-" + i, "x".repeat(50), 1));
+        }
+
+        messageLog.enforceRetention();
+
+        assertThat(messageLog.getSizeBytes()).isLessThanOrEqualTo(4096);
+        assertThat(messageLog.getStartOffset()).isPositive();
+        assertThat(messageLog.read(0)).isEmpty();
+        assertThat(messageLog.findById("id-0")).isEmpty();
+        assertThat(messageLog.read(199)).isPresent();
+    }
+
+    private MessageLog open(int segmentBytes, long retentionBytes, boolean replay) throws IOException {
+        MessageLog log = new MessageLog(new MessageLogProperties(true, directory, segmentBytes, 256,
+                Duration.ofMillis(50), 1_000, retentionBytes, Duration.ofDays(1), replay, REPLAY_MAX_RECORDS));
+        log.afterPropertiesSet();
+        return log;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
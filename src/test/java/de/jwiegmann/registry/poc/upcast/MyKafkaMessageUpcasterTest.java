@@ -0,0 +1,71 @@
+package de.jwiegmann.registry.poc.upcast;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit-Tests für die Feld-Abbildung älterer Schema-Versionen auf {@link MyKafkaMessage}.
+ */
+class MyKafkaMessageUpcasterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final MyKafkaMessageUpcaster upcaster = new MyKafkaMessageUpcaster(
+            new UpcastProperties(true, Map.of("msg", "message", "text", "message"), Map.of("version", "1")));
+
+    @Test
+    void shouldReadCurrentVersionUnchanged() throws Exception {
+        MyKafkaMessageUpcaster.Plan plan = upcaster.compile(1, schema("id", "message", "version"));
+
+        MyKafkaMessage message = read(plan, "{\"id\":\"1\",\"message\":\"hallo\",\"version\":3}");
+
+        assertThat(message.getId()).isEqualTo("1");
+        assertThat(message.getMessage()).isEqualTo("hallo");
+        assertThat(message.getVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRenameDropAndDefaultFieldsOfOlderVersion() throws Exception {
+        // Alte Version: "msg" statt "message", zusätzliches "status", kein "version"
+        MyKafkaMessageUpcaster.Plan plan = upcaster.compile(2, schema("id", "msg", "status"));
+
+        MyKafkaMessage message = read(plan, "{\"status\":{\"nested\":[1,2]},\"msg\":\"alt\",\"id\":42}");
+
+        assertThat(message.getId()).isEqualTo("42");
+        assertThat(message.getMessage()).isEqualTo("alt");
+        assertThat(message.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPreferExactNameOverAliasAndConvertNumericStrings() throws Exception {
+        MyKafkaMessageUpcaster.Plan plan = upcaster.compile(3, schema("text", "message", "version"));
+
+        MyKafkaMessage message = read(plan, "{\"text\":\"verworfen\",\"message\":\"neu\",\"version\":\" 7 \"}");
+
+        assertThat(message.getMessage()).isEqualTo("neu");
+        assertThat(message.getVersion()).isEqualTo(7);
+        assertThatThrownBy(() -> read(plan, "{\"version\":\"sieben\"}")).isInstanceOf(SerializationException.class);
+    }
+
+    private static JsonNode schema(String... properties) throws Exception {
+        StringBuilder json = new StringBuilder("{\"type\":\"object\",\"properties\":{");
+        for (int i = 0; i < properties.length; i++) {
+            json.append(i > 0 ? "," : "").append('"').append(properties[i]).append("\":{}");
+        }
+        return MAPPER.readTree(json.append("}}").toString());
+    }
+
+    private MyKafkaMessage read(MyKafkaMessageUpcaster.Plan plan, String json) {
+        byte[] data = ("XXXXX" + json).getBytes(StandardCharsets.UTF_8);
+        return upcaster.read(plan, data, 5, data.length - 5);
+    }
+}
@@ -0,0 +1,28 @@
+package de.jwiegmann.registry.poc.util;
+
+import de.jwiegmann.registry.poc.control.dto.MyKafkaMessage;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prüft die zur Build-Zeit ({@code process-classes}) erzeugten Schema-Metadaten.
+ */
+class DtoSchemaMetadataTest {
+
+    @Test
+    void shouldProvideBuildTimeMetadataForMyKafkaMessage() {
+        assertThat(DtoSchemaMetadata.forClass(MyKafkaMessage.class))
+                .hasValueSatisfying(metadata -> {
+                    assertThat(metadata.subject()).isEqualTo("de.jwiegmann.registry.poc.control.dto.MyKafkaMessage");
+                    assertThat(metadata.schemaType()).isEqualTo("JSON");
+                    assertThat(metadata.schema()).contains("\"id\"", "\"message\"", "\"version\"");
+                });
+    }
+
+    @Test
+    void shouldFallBackToClassNameWithoutMetadata() {
+        assertThat(DtoSchemaMetadata.forClass(String.class)).isEmpty();
+        assertThat(DtoSchemaMetadata.subjectOf(String.class)).isEqualTo("java.lang.String");
+    }
+}
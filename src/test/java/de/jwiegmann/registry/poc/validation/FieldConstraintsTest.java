@@ -0,0 +1,114 @@
+package de.jwiegmann.registry.poc.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit-Tests für {@link FieldConstraints} mit dem Test-Schema aus {@code /schema.json}.
+ */
+public class FieldConstraintsTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> FIELDS = List.of("id", "message", "version");
+
+    private static JsonNode schema;
+
+    @BeforeAll
+    public static void loadSchema() throws Exception {
+        try (InputStream is = FieldConstraintsTest.class.getResourceAsStream("/schema.json")) {
+            schema = MAPPER.readTree(is);
+        }
+    }
+
+    @Test
+    public void shouldValidateFieldValuesDirectly() {
+        FieldConstraints constraints = FieldConstraints.compile(schema, FIELDS).orElseThrow();
+
+        assertThatNoException().isThrownBy(() -> {
+            constraints.checkString(0, null);
+            constraints.checkString(1, "hallo");
+            constraints.checkInteger(2, 1);
+        });
+        assertThatThrownBy(() -> constraints.checkInteger(2, 0))
+                .isInstanceOfSatisfying(StreamingValidationException.class,
+                        e -> assertThat(e.getPointerToViolation()).isEqualTo("#/version"));
+    }
+
+    @Test
+    public void shouldNotCompileWhenSchemaDoesNotMatchFields() throws Exception {
+        // Pflichtfeld, das das DTO nicht kennt
+        JsonNode extraRequired = MAPPER.readTree(
+                "{\"type\":\"object\",\"properties\":{\"status\":{\"type\":\"string\"}},\"required\":[\"status\"]}");
+        // DTO-Feld, das bei additionalProperties=false nicht erlaubt ist
+        JsonNode missingField = MAPPER.readTree(
+                "{\"type\":\"object\",\"additionalProperties\":false,\"properties\":{\"id\":{\"type\":\"string\"}}}");
+
+        assertThat(FieldConstraints.compile(extraRequired, FIELDS)).isEmpty();
+        assertThat(FieldConstraints.compile(missingField, FIELDS)).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepTighterBoundAndIntersectTypes() throws Exception {
+        // exclusiveMinimum vor minimum, type nach oneOf: weder Grenze noch Typ-Einschränkung darf verloren gehen
+        JsonNode schema = MAPPER.readTree("""
+                {"type":"object","properties":{
+                  "message":{"oneOf":[{"type":"string"},{"type":"null"}],"type":"string"},
+                  "version":{"exclusiveMinimum":5,"minimum":1,"maximum":100,"exclusiveMaximum":10}}}""");
+        FieldConstraints constraints = FieldConstraints.compile(schema, FIELDS).orElseThrow();
+
+        assertThatNoException().isThrownBy(() -> {
+            constraints.checkInteger(2, 6);
+            constraints.checkInteger(2, 9);
+        });
+        assertThatThrownBy(() -> constraints.checkInteger(2, 5)).isInstanceOf(StreamingValidationException.class);
+        assertThatThrownBy(() -> constraints.checkInteger(2, 10)).isInstanceOf(StreamingValidationException.class);
+        assertThatThrownBy(() -> constraints.checkString(1, null)).isInstanceOf(StreamingValidationException.class);
+    }
+
+    @Test
+    public void shouldClampBoundsOutsideLongRange() throws Exception {
+        // Ohne Begrenzung würde 1e20 zu einem negativen Maximum und jeder Wert abgelehnt
+        JsonNode wide = MAPPER.readTree("""
+                {"type":"object","properties":{"version":{"minimum":-1e20,"maximum":1e20,
+                  "exclusiveMinimum":-9223372036854775808,"exclusiveMaximum":9223372036854775807}}}""");
+        FieldConstraints constraints = FieldConstraints.compile(wide, FIELDS).orElseThrow();
+
+        assertThatNoException().isThrownBy(() -> {
+            constraints.checkInteger(2, 1);
+            constraints.checkInteger(2, Long.MIN_VALUE + 1);
+            constraints.checkInteger(2, Long.MAX_VALUE - 1);
+        });
+        assertThatThrownBy(() -> constraints.checkInteger(2, Long.MIN_VALUE))
+                .isInstanceOf(StreamingValidationException.class);
+        assertThatThrownBy(() -> constraints.checkInteger(2, Long.MAX_VALUE))
+                .isInstanceOf(StreamingValidationException.class);
+    }
+
+    @Test
+    public void shouldNotCompileBoundsNoLongCanSatisfy() throws Exception {
+        JsonNode tooLarge = MAPPER.readTree(
+                "{\"type\":\"object\",\"properties\":{\"version\":{\"exclusiveMinimum\":9223372036854775807}}}");
+        JsonNode tooSmall = MAPPER.readTree(
+                "{\"type\":\"object\",\"properties\":{\"version\":{\"maximum\":-1e20}}}");
+
+        assertThat(FieldConstraints.compile(tooLarge, FIELDS)).isEmpty();
+        assertThat(FieldConstraints.compile(tooSmall, FIELDS)).isEmpty();
+    }
+
+    @Test
+    public void shouldNotCompileDraft04ExclusiveBounds() throws Exception {
+        JsonNode draft04 = MAPPER.readTree(
+                "{\"type\":\"object\",\"properties\":{\"version\":{\"minimum\":1,\"exclusiveMinimum\":true}}}");
+
+        assertThat(FieldConstraints.compile(draft04, FIELDS)).isEmpty();
+    }
+}
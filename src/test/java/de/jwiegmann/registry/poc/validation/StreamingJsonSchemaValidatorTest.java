@@ -0,0 +1,125 @@
+package de.jwiegmann.registry.poc.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit-Tests für den {@link StreamingJsonSchemaValidator} mit dem Test-Schema aus {@code /schema.json}.
+ */
+public class StreamingJsonSchemaValidatorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static JsonNode schema;
+    private static StreamingJsonSchemaValidator validator;
+
+    @BeforeAll
+    public static void compileSchema() throws Exception {
+        try (InputStream is = StreamingJsonSchemaValidatorTest.class.getResourceAsStream("/schema.json")) {
+            schema = MAPPER.readTree(is);
+        }
+        validator = StreamingJsonSchemaValidator.compile(schema, StreamingValidationLimits.DEFAULTS).orElseThrow();
+    }
+
+    @Test
+    public void shouldAcceptValidPayloads() {
+        assertThatNoException().isThrownBy(() -> validate("{\"id\":\"1\",\"message\":\"hallo\",\"version\":1}"));
+        assertThatNoException().isThrownBy(() -> validate("{\"id\":null,\"version\":3}"));
+    }
+
+    @Test
+    public void shouldRejectAdditionalPropertyBeforeReadingItsValue() {
+        // Der String ist absichtlich nicht terminiert – sein Inhalt darf nie gelesen werden
+        assertViolation("{\"unknown\": \"" + "x".repeat(10_000), "#/unknown", "additionalProperties");
+    }
+
+    @Test
+    public void shouldRejectWrongTypeAndMinimum() {
+        assertViolation("{\"version\":\"1\"}", "#/version", "type");
+        assertViolation("{\"version\":0}", "#/version", "minimum");
+        assertViolation("{\"id\":42,\"version\":1}", "#/id", "type");
+    }
+
+    @Test
+    public void shouldRejectMissingRequiredProperty() {
+        assertViolation("{\"id\":\"1\"}", "#", "required");
+    }
+
+    @Test
+    public void shouldEnforceLimits() {
+        StreamingJsonSchemaValidator strict = StreamingJsonSchemaValidator
+                .compile(schema, new StreamingValidationLimits(64, 2, 8))
+                .orElseThrow();
+
+        byte[] tooLarge = ("{\"message\":\"" + "x".repeat(100) + "\",\"version\":1}").getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> strict.validate(tooLarge, 0, tooLarge.length))
+                .isInstanceOfSatisfying(StreamingValidationException.class,
+                        e -> assertThat(e.getKeyword()).isEqualTo("maxPayloadBytes"));
+
+        byte[] longString = "{\"message\":\"0123456789\",\"version\":1}".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> strict.validate(longString, 0, longString.length))
+                .isInstanceOf(StreamingValidationException.class);
+    }
+
+    @Test
+    public void shouldNotCompileUnsupportedKeywords() throws Exception {
+        JsonNode withPattern = MAPPER.readTree("{\"type\":\"string\",\"pattern\":\"^a\"}");
+
+        assertThat(StreamingJsonSchemaValidator.compile(withPattern, StreamingValidationLimits.DEFAULTS)).isEmpty();
+    }
+
+    @Test
+    public void shouldIntersectTypeWithOneOf() throws Exception {
+        // oneOf vor type: das spätere Schlüsselwort darf die Einschränkung des früheren nicht aufheben
+        JsonNode both = MAPPER.readTree("{\"oneOf\":[{\"type\":\"string\"},{\"type\":\"null\"}],\"type\":\"string\"}");
+        StreamingJsonSchemaValidator strict = StreamingJsonSchemaValidator
+                .compile(both, StreamingValidationLimits.DEFAULTS)
+                .orElseThrow();
+
+        byte[] string = "\"a\"".getBytes(StandardCharsets.UTF_8);
+        byte[] nul = "null".getBytes(StandardCharsets.UTF_8);
+        assertThatNoException().isThrownBy(() -> strict.validate(string, 0, string.length));
+        assertThatThrownBy(() -> strict.validate(nul, 0, nul.length))
+                .isInstanceOfSatisfying(StreamingValidationException.class,
+                        e -> assertThat(e.getKeyword()).isEqualTo("type"));
+    }
+
+    @Test
+    public void shouldNotCompileOneOfWithIntegerAndNumber() throws Exception {
+        // Eine ganze Zahl erfüllt beide Zweige und verletzt damit oneOf – nur baumbasiert prüfbar
+        JsonNode overlapping = MAPPER.readTree("{\"oneOf\":[{\"type\":\"integer\"},{\"type\":\"number\"}]}");
+        JsonNode reversed = MAPPER.readTree("{\"oneOf\":[{\"type\":\"number\"},{\"type\":\"integer\"}]}");
+
+        assertThat(StreamingJsonSchemaValidator.compile(overlapping, StreamingValidationLimits.DEFAULTS)).isEmpty();
+        assertThat(StreamingJsonSchemaValidator.compile(reversed, StreamingValidationLimits.DEFAULTS)).isEmpty();
+    }
+
+    @Test
+    public void shouldNotCompileDraft04ExclusiveBounds() throws Exception {
+        JsonNode draft04 = MAPPER.readTree("{\"type\":\"integer\",\"minimum\":1,\"exclusiveMinimum\":true}");
+
+        assertThat(StreamingJsonSchemaValidator.compile(draft04, StreamingValidationLimits.DEFAULTS)).isEmpty();
+    }
+
+    private static void validate(String json) {
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        validator.validate(data, 0, data.length);
+    }
+
+    private static void assertViolation(String json, String pointer, String keyword) {
+        assertThatThrownBy(() -> validate(json))
+                .isInstanceOfSatisfying(StreamingValidationException.class, e -> {
+                    assertThat(e.getPointerToViolation()).isEqualTo(pointer);
+                    assertThat(e.getKeyword()).isEqualTo(keyword);
+                });
+    }
+}